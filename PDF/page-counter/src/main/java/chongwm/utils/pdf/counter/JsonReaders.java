@@ -0,0 +1,31 @@
+package chongwm.utils.pdf.counter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+/**
+ * Shared, thread-safe Jackson reader for the document definitions, so repeated counts in one
+ * JVM do not rebuild the mapper and its deserializer caches every time.
+ *
+ * <p>The Blackbird module is registered by default; start the JVM with
+ * {@code -Dpdf.counter.jackson.blackbird=false} to use plain reflection instead.
+ */
+public final class JsonReaders {
+    private static final ObjectMapper MAPPER = createMapper();
+    private static final ObjectReader DOCUMENT_LIST = MAPPER.readerFor(DocumentList.class);
+
+    private JsonReaders() {}
+
+    public static ObjectReader documentList() {
+        return DOCUMENT_LIST;
+    }
+
+    private static ObjectMapper createMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        if (!"false".equalsIgnoreCase(System.getProperty("pdf.counter.jackson.blackbird"))) {
+            mapper.registerModule(new BlackbirdModule());
+        }
+        return mapper;
+    }
+}
@@ -1,6 +1,5 @@
 package chongwm.utils.pdf.counter;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.slf4j.Logger;
@@ -98,8 +97,7 @@ public class PdfPageCounter {
         }
 
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            DocumentList documentList = mapper.readValue(jsonFile, DocumentList.class);
+            DocumentList documentList = JsonReaders.documentList().readValue(jsonFile);
             
             if (documentList.getDocuments() == null || documentList.getDocuments().isEmpty()) {
                 logger.info("No documents found in JSON, page count: 0");
@@ -0,0 +1,146 @@
+package chongwm.utils.pdf.benchmark;
+
+import chongwm.utils.pdf.model.DocumentSection;
+import chongwm.utils.pdf.model.SplitConfiguration;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationLink;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageFitDestination;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Builds the synthetic inputs shared by the benchmarks.
+ */
+final class BenchmarkDocuments {
+
+    private BenchmarkDocuments() {
+    }
+
+    /**
+     * Writes a PDF whose pages all carry a short text block and share one resource dictionary.
+     * When {@code sharedResourceKb} is positive the dictionary also holds an unused image of
+     * roughly that many kilobytes, the way scanner output often shares one large dictionary.
+     *
+     * @param file the file to write
+     * @param pageCount number of pages
+     * @param sharedResourceKb approximate size of the unused shared image, 0 for none
+     * @throws IOException if the file cannot be written
+     */
+    static void writePdf(File file, int pageCount, int sharedResourceKb) throws IOException {
+        writePdf(file, pageCount, sharedResourceKb, false);
+    }
+
+    /**
+     * Writes the same PDF as {@link #writePdf(File, int, int)}, optionally with a link on every
+     * page back to the first page, like the "back to contents" links of generated reports.
+     *
+     * @param file the file to write
+     * @param pageCount number of pages
+     * @param sharedResourceKb approximate size of the unused shared image, 0 for none
+     * @param linkToFirstPage whether every page links to the first page
+     * @throws IOException if the file cannot be written
+     */
+    static void writePdf(File file, int pageCount, int sharedResourceKb, boolean linkToFirstPage) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDResources shared = new PDResources();
+            if (sharedResourceKb > 0) {
+                shared.add(noiseImage(document, sharedResourceKb));
+            }
+
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (int i = 0; i < pageCount; i++) {
+                PDPage page = new PDPage();
+                page.setResources(shared);
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.newLineAtOffset(50, 700);
+                    for (int line = 0; line < 20; line++) {
+                        content.showText("Page " + (i + 1) + " line " + line + " of the benchmark document");
+                        content.newLineAtOffset(0, -14);
+                    }
+                    content.endText();
+                }
+                if (linkToFirstPage) {
+                    PDPageFitDestination destination = new PDPageFitDestination();
+                    destination.setPage(document.getPage(0));
+                    PDAnnotationLink link = new PDAnnotationLink();
+                    link.setRectangle(new PDRectangle(50, 50, 100, 20));
+                    link.setDestination(destination);
+                    page.getAnnotations().add(link);
+                }
+            }
+            document.save(file);
+        }
+    }
+
+    /**
+     * Returns a configuration of {@code sectionCount} consecutive sections covering all pages.
+     *
+     * @param pageCount number of pages in the document
+     * @param sectionCount number of sections, capped at {@code pageCount}
+     * @return the configuration
+     */
+    static SplitConfiguration sections(int pageCount, int sectionCount) {
+        int count = Math.min(sectionCount, pageCount);
+        List<DocumentSection> sections = new ArrayList<>(count);
+        int pagesPerSection = pageCount / count;
+        for (int i = 0; i < count; i++) {
+            int start = i * pagesPerSection + 1;
+            int end = i == count - 1 ? pageCount : start + pagesPerSection - 1;
+            sections.add(new DocumentSection("section", start, end, 90));
+        }
+        return new SplitConfiguration(sections);
+    }
+
+    static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Creates an uncompressed 8-bit grey image filled with noise, so its size on disk is
+     * predictable.
+     */
+    private static PDImageXObject noiseImage(PDDocument document, int kilobytes) throws IOException {
+        int side = (int) Math.ceil(Math.sqrt(kilobytes * 1024.0));
+        byte[] pixels = new byte[side * side];
+        new Random(42).nextBytes(pixels);
+
+        COSStream stream = document.getDocument().createCOSStream();
+        try (OutputStream out = stream.createRawOutputStream()) {
+            out.write(pixels);
+        }
+        stream.setItem(COSName.TYPE, COSName.XOBJECT);
+        stream.setItem(COSName.SUBTYPE, COSName.IMAGE);
+        stream.setInt(COSName.WIDTH, side);
+        stream.setInt(COSName.HEIGHT, side);
+        stream.setInt(COSName.BITS_PER_COMPONENT, 8);
+        stream.setItem(COSName.COLORSPACE, COSName.DEVICEGRAY);
+        return new PDImageXObject(new PDStream(stream), null);
+    }
+}
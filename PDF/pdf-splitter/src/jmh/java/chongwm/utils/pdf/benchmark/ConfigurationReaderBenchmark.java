@@ -0,0 +1,70 @@
+package chongwm.utils.pdf.benchmark;
+
+import chongwm.utils.pdf.exception.InvalidConfigurationException;
+import chongwm.utils.pdf.model.SplitConfiguration;
+import chongwm.utils.pdf.util.JsonConfigurationReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing and validating large JSON configurations with
+ * {@link JsonConfigurationReader#readConfiguration(String)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationReaderBenchmark {
+
+    @Param({"100", "5000"})
+    int sectionCount;
+
+    private Path configFile;
+    private JsonConfigurationReader reader;
+
+    @Setup(Level.Trial)
+    public void writeConfiguration() throws IOException {
+        configFile = Files.createTempFile("pdf-splitter-config-bench", ".json");
+        try (BufferedWriter writer = Files.newBufferedWriter(configFile, StandardCharsets.UTF_8)) {
+            writer.write("{\"documents\": [\n");
+            for (int i = 0; i < sectionCount; i++) {
+                int start = i * 3 + 1;
+                writer.write(String.format(
+                    "  {\"category\": \"category-%d\", \"startPage\": %d, \"endPage\": %d, \"confidence\": %d}%s%n",
+                    i % 50, start, start + 2, 50 + i % 50, i < sectionCount - 1 ? "," : ""));
+            }
+            writer.write("]}\n");
+        }
+        reader = new JsonConfigurationReader();
+    }
+
+    @TearDown(Level.Trial)
+    public void removeConfiguration() throws IOException {
+        Files.deleteIfExists(configFile);
+    }
+
+    @Benchmark
+    public SplitConfiguration readConfiguration() throws InvalidConfigurationException {
+        return reader.readConfiguration(configFile.toString());
+    }
+}
@@ -0,0 +1,79 @@
+package chongwm.utils.pdf.benchmark;
+
+import chongwm.utils.pdf.service.FileNamingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FileNamingService#generateUniqueFileName} when every request collides with
+ * the same base name, in a directory that already holds {@code existingFiles} such names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileNamingBenchmark {
+
+    @Param({"0", "10000"})
+    int existingFiles;
+
+    private Path outputDirectory;
+    private String outputPath;
+    private FileNamingService fileNamingService;
+
+    @Setup(Level.Trial)
+    public void createDirectory() throws IOException {
+        outputDirectory = Files.createTempDirectory("pdf-splitter-naming-bench");
+        outputPath = outputDirectory.toString();
+        if (existingFiles > 0) {
+            Files.createFile(outputDirectory.resolve("invoice_95.pdf"));
+        }
+        for (int i = 1; i < existingFiles; i++) {
+            Files.createFile(outputDirectory.resolve("invoice_95_" + i + ".pdf"));
+        }
+    }
+
+    /**
+     * Each iteration starts from a fresh listing, so the one-off directory scan is part of
+     * the measurement.
+     */
+    @Setup(Level.Iteration)
+    public void createService() {
+        fileNamingService = new FileNamingService();
+    }
+
+    @TearDown(Level.Trial)
+    public void removeDirectory() throws IOException {
+        BenchmarkDocuments.deleteRecursively(outputDirectory);
+    }
+
+    @Benchmark
+    public String collidingName() {
+        return fileNamingService.generateUniqueFileName("invoice", 95, outputPath);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String collidingNameConcurrent() {
+        return fileNamingService.generateUniqueFileName("invoice", 95, outputPath);
+    }
+}
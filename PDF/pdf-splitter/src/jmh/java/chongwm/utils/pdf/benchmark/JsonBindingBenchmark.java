@@ -0,0 +1,71 @@
+package chongwm.utils.pdf.benchmark;
+
+import chongwm.utils.pdf.model.SplitConfiguration;
+import chongwm.utils.pdf.util.JsonReaders;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares binding a {@link SplitConfiguration} with a new {@link ObjectMapper} per call, as the
+ * readers used to, against the shared readers of {@link JsonReaders} with and without the
+ * Blackbird module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBindingBenchmark {
+
+    @Param({"10", "1000"})
+    int sectionCount;
+
+    private byte[] json;
+    private ObjectReader reflectiveReader;
+    private ObjectReader blackbirdReader;
+
+    @Setup(Level.Trial)
+    public void createJson() {
+        StringBuilder builder = new StringBuilder("{\"documents\": [");
+        for (int i = 0; i < sectionCount; i++) {
+            builder.append(i == 0 ? "" : ",")
+                   .append(String.format("{\"category\": \"category-%d\", \"start_page\": %d, \"end_page\": %d, "
+                                         + "\"confidence\": %d}", i % 50, i * 2 + 1, i * 2 + 2, 50 + i % 50));
+        }
+        json = builder.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+        reflectiveReader = JsonReaders.createMapper(false).readerFor(SplitConfiguration.class);
+        blackbirdReader = JsonReaders.createMapper(true).readerFor(SplitConfiguration.class);
+    }
+
+    @Benchmark
+    public SplitConfiguration newMapperPerCall() throws IOException {
+        return new ObjectMapper().readValue(json, SplitConfiguration.class);
+    }
+
+    @Benchmark
+    public SplitConfiguration sharedReader() throws IOException {
+        return reflectiveReader.readValue(json);
+    }
+
+    @Benchmark
+    public SplitConfiguration sharedReaderBlackbird() throws IOException {
+        return blackbirdReader.readValue(json);
+    }
+}
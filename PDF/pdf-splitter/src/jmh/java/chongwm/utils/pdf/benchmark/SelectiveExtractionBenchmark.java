@@ -0,0 +1,90 @@
+package chongwm.utils.pdf.benchmark;
+
+import chongwm.utils.pdf.exception.PdfSplitterException;
+import chongwm.utils.pdf.model.DocumentSection;
+import chongwm.utils.pdf.model.SplitConfiguration;
+import chongwm.utils.pdf.model.SplitOptions;
+import chongwm.utils.pdf.service.FileNamingService;
+import chongwm.utils.pdf.service.PdfSplitterService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures extracting 3 pages from the middle of a large document, with the default full
+ * page-tree resolution and with {@link SplitOptions#setSelectiveExtraction selective}
+ * extraction. With {@code links} every page links back to the first one, which in the default
+ * mode drags the whole source page tree into the output. The input has a flat page tree, so
+ * selective lookup still resolves every page before the section.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SelectiveExtractionBenchmark {
+
+    @Param({"4000"})
+    int pageCount;
+
+    @Param({"false", "true"})
+    boolean links;
+
+    @Param({"false", "true"})
+    boolean selective;
+
+    private Path workDirectory;
+    private File inputPdf;
+    private SplitConfiguration config;
+    private PdfSplitterService splitterService;
+    private int run;
+
+    @Setup(Level.Trial)
+    public void createInput() throws IOException {
+        workDirectory = Files.createTempDirectory("pdf-splitter-bench");
+        inputPdf = workDirectory.resolve("input.pdf").toFile();
+        BenchmarkDocuments.writePdf(inputPdf, pageCount, 0, links);
+        int start = pageCount / 2;
+        config = new SplitConfiguration(Collections.singletonList(
+            new DocumentSection("excerpt", start, start + 2, 90)));
+
+        SplitOptions options = new SplitOptions();
+        options.setSelectiveExtraction(selective);
+        splitterService = new PdfSplitterService(new FileNamingService(), options);
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeOutputs() throws IOException {
+        BenchmarkDocuments.deleteRecursively(workDirectory.resolve("out"));
+    }
+
+    @TearDown(Level.Trial)
+    public void removeInput() throws IOException {
+        BenchmarkDocuments.deleteRecursively(workDirectory);
+    }
+
+    @Benchmark
+    public List<String> extract() throws PdfSplitterException {
+        String outputDirectory = workDirectory.resolve("out").resolve(Integer.toString(run++)).toString();
+        return splitterService.splitPdfWithConfiguration(inputPdf.getAbsolutePath(), config, outputDirectory);
+    }
+}
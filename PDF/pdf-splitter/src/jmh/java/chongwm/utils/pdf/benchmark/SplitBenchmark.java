@@ -0,0 +1,80 @@
+package chongwm.utils.pdf.benchmark;
+
+import chongwm.utils.pdf.exception.PdfSplitterException;
+import chongwm.utils.pdf.model.SplitConfiguration;
+import chongwm.utils.pdf.service.FileNamingService;
+import chongwm.utils.pdf.service.PdfSplitterService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a complete {@link PdfSplitterService#splitPdfWithConfiguration} call, from loading
+ * the source to saving every section, for different document shapes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SplitBenchmark {
+
+    @Param({"10", "200"})
+    int pageCount;
+
+    @Param({"1", "10"})
+    int sectionCount;
+
+    @Param({"0", "512"})
+    int sharedResourceKb;
+
+    private Path workDirectory;
+    private File inputPdf;
+    private SplitConfiguration config;
+    private PdfSplitterService splitterService;
+    private int run;
+
+    @Setup(Level.Trial)
+    public void createInput() throws IOException {
+        workDirectory = Files.createTempDirectory("pdf-splitter-bench");
+        inputPdf = workDirectory.resolve("input.pdf").toFile();
+        BenchmarkDocuments.writePdf(inputPdf, pageCount, sharedResourceKb);
+        config = BenchmarkDocuments.sections(pageCount, sectionCount);
+        splitterService = new PdfSplitterService(new FileNamingService());
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeOutputs() throws IOException {
+        BenchmarkDocuments.deleteRecursively(workDirectory.resolve("out"));
+    }
+
+    @TearDown(Level.Trial)
+    public void removeInput() throws IOException {
+        BenchmarkDocuments.deleteRecursively(workDirectory);
+    }
+
+    @Benchmark
+    public List<String> split() throws PdfSplitterException {
+        // A fresh directory per call keeps every call writing the same file names
+        String outputDirectory = workDirectory.resolve("out").resolve(Integer.toString(run++)).toString();
+        return splitterService.splitPdfWithConfiguration(inputPdf.getAbsolutePath(), config, outputDirectory);
+    }
+}
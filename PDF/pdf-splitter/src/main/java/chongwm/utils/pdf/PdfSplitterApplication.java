@@ -1,11 +1,45 @@
 package chongwm.utils.pdf;
 
+import chongwm.utils.pdf.exception.InvalidConfigurationException;
 import chongwm.utils.pdf.exception.PdfSplitterException;
+import chongwm.utils.pdf.metrics.InMemorySplitMetrics;
+import chongwm.utils.pdf.model.ArchiveFormat;
+import chongwm.utils.pdf.model.BatchItem;
+import chongwm.utils.pdf.model.BatchSummary;
+import chongwm.utils.pdf.model.FanOutResult;
+import chongwm.utils.pdf.model.OutputLayout;
+import chongwm.utils.pdf.model.PreflightReport;
+import chongwm.utils.pdf.model.SaveProfile;
+import chongwm.utils.pdf.model.SplitConfiguration;
+import chongwm.utils.pdf.model.SplitOptions;
+import chongwm.utils.pdf.server.SplitHttpServer;
+import chongwm.utils.pdf.service.BatchSplitService;
+import chongwm.utils.pdf.service.FileNamingService;
+import chongwm.utils.pdf.service.PdfSource;
 import chongwm.utils.pdf.service.PdfSplitterService;
+import chongwm.utils.pdf.service.WatchFolderService;
+import chongwm.utils.pdf.util.BatchManifestReader;
+import chongwm.utils.pdf.util.JsonConfigurationReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * Main application class for PDF splitting.
@@ -13,23 +47,173 @@ import java.util.List;
 public class PdfSplitterApplication {
     
     private static final Logger logger = LoggerFactory.getLogger(PdfSplitterApplication.class);
+    
+    /** Time both files of a watched pair must stay unchanged before they are split. */
+    private static final long WATCH_SETTLE_MILLIS = 2_000;
+    private static final long WATCH_REPORT_INTERVAL_MILLIS = 60_000;
+    
+    /** Input path that reads the PDF from standard input. */
+    private static final String STANDARD_INPUT = "-";
 
     public static void main(String[] args) {
-        if (args.length != 3) {
-            System.err.println("Usage: java -jar pdf-splitter.jar <input-pdf> <config-json> <output-directory>");
-            System.err.println("Example: java -jar pdf-splitter.jar input.pdf config.json ./output/");
+        SplitOptions options = new SplitOptions();
+        List<String> positional = new ArrayList<>();
+        String batchManifest = null;
+        int batchJobs = Runtime.getRuntime().availableProcessors();
+        int servePort = -1;
+        int queueCapacity = 64;
+        String workDirectory = System.getProperty("java.io.tmpdir") + File.separator + "pdf-splitter";
+        String outputRoot = null;
+        String archivePath = null;
+        ArchiveFormat archiveFormat = null;
+        String metricsPath = null;
+        String watchDirectory = null;
+        boolean check = false;
+        boolean fanOut = false;
+        
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if ("--workers".equals(arg)) {
+                    options.setWorkerCount(Integer.parseInt(requireValue(args, ++i, arg)));
+                } else if ("--memory-budget".equals(arg)) {
+                    options.setMemoryBudgetBytes(parseSize(requireValue(args, ++i, arg)));
+                } else if ("--save-profile".equals(arg)) {
+                    options.setSaveProfile(SaveProfile.fromName(requireValue(args, ++i, arg)));
+                } else if ("--prune-resources".equals(arg)) {
+                    options.setPruneResources(true);
+                } else if ("--reuse-results".equals(arg)) {
+                    options.setReuseResults(true);
+                } else if ("--mmap".equals(arg)) {
+                    options.setMemoryMappedInput(true);
+                } else if ("--selective".equals(arg)) {
+                    options.setSelectiveExtraction(true);
+                } else if ("--output-layout".equals(arg)) {
+                    options.setOutputLayout(OutputLayout.fromName(requireValue(args, ++i, arg)));
+                } else if ("--manifest".equals(arg)) {
+                    options.setWriteManifest(true);
+                } else if ("--document-cache".equals(arg)) {
+                    options.setDocumentCacheBytes(parseSize(requireValue(args, ++i, arg)));
+                } else if ("--metrics".equals(arg)) {
+                    metricsPath = requireValue(args, ++i, arg);
+                } else if ("--scratch-dir".equals(arg)) {
+                    options.setScratchDirectory(requireValue(args, ++i, arg));
+                } else if ("--batch".equals(arg)) {
+                    batchManifest = requireValue(args, ++i, arg);
+                } else if ("--jobs".equals(arg)) {
+                    batchJobs = Integer.parseInt(requireValue(args, ++i, arg));
+                    if (batchJobs < 1) {
+                        throw new IllegalArgumentException("Jobs must be greater than 0");
+                    }
+                } else if ("--serve".equals(arg)) {
+                    servePort = Integer.parseInt(requireValue(args, ++i, arg));
+                } else if ("--watch".equals(arg)) {
+                    watchDirectory = requireValue(args, ++i, arg);
+                } else if ("--queue".equals(arg)) {
+                    queueCapacity = Integer.parseInt(requireValue(args, ++i, arg));
+                } else if ("--work-dir".equals(arg)) {
+                    workDirectory = requireValue(args, ++i, arg);
+                } else if ("--output-root".equals(arg)) {
+                    outputRoot = requireValue(args, ++i, arg);
+                } else if ("--check".equals(arg)) {
+                    check = true;
+                } else if ("--fan-out".equals(arg)) {
+                    fanOut = true;
+                } else if ("--archive".equals(arg)) {
+                    archivePath = requireValue(args, ++i, arg);
+                } else if ("--archive-format".equals(arg)) {
+                    archiveFormat = ArchiveFormat.fromName(requireValue(args, ++i, arg));
+                } else if (arg.startsWith("--")) {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                } else {
+                    positional.add(arg);
+                }
+            }
+            if (metricsPath != null || servePort >= 0 || watchDirectory != null) {
+                options.setMetrics(new InMemorySplitMetrics());
+            }
+            options.validate();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            printUsage();
+            System.exit(1);
+        }
+        
+        if (servePort >= 0) {
+            if (!positional.isEmpty() || batchManifest != null) {
+                printUsage();
+                System.exit(1);
+            }
+            System.exit(runServer(servePort, batchJobs, queueCapacity, workDirectory, outputRoot, options));
+        }
+        
+        if (watchDirectory != null) {
+            if (positional.size() != 1 || batchManifest != null || archivePath != null) {
+                printUsage();
+                System.exit(1);
+            }
+            System.exit(runWatch(watchDirectory, positional.get(0), batchJobs, queueCapacity, metricsPath, options));
+        }
+        
+        if (batchManifest != null) {
+            if (!positional.isEmpty()) {
+                printUsage();
+                System.exit(1);
+            }
+            System.exit(writeMetrics(runBatch(batchManifest, batchJobs, options), metricsPath, options));
+        }
+        
+        if (check) {
+            if (positional.isEmpty() || positional.size() > 2 || archivePath != null) {
+                printUsage();
+                System.exit(1);
+            }
+            System.exit(runCheck(positional.get(0), positional.size() == 2 ? positional.get(1) : null, options));
+        }
+        
+        if (fanOut) {
+            if (positional.size() < 3 || positional.size() % 2 == 0 || archivePath != null) {
+                printUsage();
+                System.exit(1);
+            }
+            System.exit(writeMetrics(runFanOut(positional.get(0), positional.subList(1, positional.size()), options),
+                                     metricsPath, options));
+        }
+        
+        if (archivePath != null) {
+            if (positional.size() != 2) {
+                printUsage();
+                System.exit(1);
+            }
+            if (archiveFormat == null) {
+                archiveFormat = ArchiveFormat.fromFileName(archivePath);
+            }
+            System.exit(writeMetrics(runArchive(positional.get(0), positional.get(1), archivePath, archiveFormat, options),
+                                     metricsPath, options));
+        }
+        
+        if (positional.size() != 3) {
+            printUsage();
             System.exit(1);
         }
 
-        String inputPdfPath = args[0];
-        String configurationPath = args[1];
-        String outputDirectory = args[2];
+        String inputPdfPath = positional.get(0);
+        String configurationPath = positional.get(1);
+        String outputDirectory = positional.get(2);
 
         try {
             logger.info("Starting PDF Splitter Application");
             
-            PdfSplitterService service = new PdfSplitterService();
-            List<String> outputFiles = service.splitPdf(inputPdfPath, configurationPath, outputDirectory);
+            PdfSplitterService service = new PdfSplitterService(new FileNamingService(), options);
+            List<String> outputFiles;
+            if (STANDARD_INPUT.equals(inputPdfPath)) {
+                try (PdfSource input = spoolStandardInput(options)) {
+                    SplitConfiguration config = new JsonConfigurationReader().readConfiguration(configurationPath);
+                    outputFiles = service.splitPdfWithConfiguration(input, config, outputDirectory);
+                }
+            } else {
+                outputFiles = service.splitPdf(inputPdfPath, configurationPath, outputDirectory);
+            }
             
             System.out.println("PDF splitting completed successfully!");
             System.out.println("Generated files:");
@@ -42,11 +226,369 @@ public class PdfSplitterApplication {
         } catch (PdfSplitterException e) {
             logger.error("PDF splitting failed: {}", e.getMessage(), e);
             System.err.println("Error: " + e.getMessage());
-            System.exit(1);
+            System.exit(writeMetrics(1, metricsPath, options));
         } catch (Exception e) {
             logger.error("Unexpected error: {}", e.getMessage(), e);
             System.err.println("Unexpected error: " + e.getMessage());
-            System.exit(1);
+            System.exit(writeMetrics(1, metricsPath, options));
+        }
+        writeMetrics(0, metricsPath, options);
+    }
+
+    /**
+     * Writes the collected metrics in the Prometheus text format to a file, or to standard error
+     * when the path is {@code -}, so they never mix with an archive written to standard output.
+     * 
+     * @return the exit code to use, which is 1 if the run succeeded but the metrics could not be written
+     */
+    private static int writeMetrics(int exitCode, String metricsPath, SplitOptions options) {
+        if (metricsPath == null || !(options.getMetrics() instanceof InMemorySplitMetrics)) {
+            return exitCode;
         }
+        String text = ((InMemorySplitMetrics) options.getMetrics()).toPrometheusText();
+        if ("-".equals(metricsPath)) {
+            System.err.print(text);
+            System.err.flush();
+            return exitCode;
+        }
+        try {
+            Files.write(Paths.get(metricsPath), text.getBytes(StandardCharsets.UTF_8));
+            return exitCode;
+        } catch (IOException e) {
+            logger.error("Failed to write metrics to {}: {}", metricsPath, e.getMessage());
+            System.err.println("Error: failed to write metrics: " + e.getMessage());
+            return exitCode == 0 ? 1 : exitCode;
+        }
+    }
+
+    /**
+     * Reports the page count and encryption of a PDF and checks a configuration against it,
+     * without splitting.
+     * 
+     * @return the process exit code: 0 if the check passed, 2 if problems were found
+     */
+    private static int runCheck(String inputPdfPath, String configurationPath, SplitOptions options) {
+        try {
+            PdfSplitterService service = new PdfSplitterService(new FileNamingService(), options);
+            SplitConfiguration config = null;
+            String configurationProblem = null;
+            if (configurationPath != null) {
+                try {
+                    config = new JsonConfigurationReader().readConfiguration(configurationPath);
+                } catch (InvalidConfigurationException e) {
+                    // Still probe the document, so one run reports everything wrong
+                    configurationProblem = e.getMessage();
+                }
+            }
+            PreflightReport report;
+            if (STANDARD_INPUT.equals(inputPdfPath)) {
+                try (PdfSource input = spoolStandardInput(options)) {
+                    report = service.preflight(input, config);
+                }
+            } else {
+                report = service.preflight(inputPdfPath, config);
+            }
+            
+            System.out.printf("%s: %d pages, PDF %.1f, %d bytes%s%s%n", report.getSource(), report.getPageCount(),
+                              report.getVersion(), report.getBytes(), report.isEncrypted() ? ", encrypted" : "",
+                              report.isRepairNeeded() ? ", damaged cross-reference data" : "");
+            for (String problem : report.getProblems()) {
+                System.out.println("  Problem: " + problem);
+            }
+            if (configurationProblem != null) {
+                System.out.println("  Problem: " + configurationProblem);
+                return 2;
+            }
+            if (report.isPassed()) {
+                System.out.println(config != null 
+                    ? "Check passed: all " + config.getDocuments().size() + " sections fit the document" 
+                    : "Check passed");
+                return 0;
+            }
+            return 2;
+            
+        } catch (PdfSplitterException | IOException e) {
+            logger.error("Check failed: {}", e.getMessage(), e);
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Splits one PDF into a single archive file, or onto standard output when the path is {@code -}.
+     * 
+     * @return the process exit code
+     */
+    private static int runArchive(String inputPdfPath, String configurationPath, String archivePath,
+                                  ArchiveFormat format, SplitOptions options) {
+        boolean toStdout = "-".equals(archivePath);
+        PrintStream messages = System.out;
+        
+        try {
+            OutputStream archiveStream;
+            if (toStdout) {
+                // Keep console logging and messages off the archive stream
+                archiveStream = new FileOutputStream(FileDescriptor.out);
+                System.setOut(System.err);
+                messages = System.err;
+            } else {
+                archiveStream = new FileOutputStream(archivePath);
+            }
+            
+            logger.info("Starting PDF Splitter Application in archive mode");
+            
+            PdfSplitterService service = new PdfSplitterService(new FileNamingService(), options);
+            List<String> entries;
+            try (OutputStream out = new BufferedOutputStream(archiveStream)) {
+                if (STANDARD_INPUT.equals(inputPdfPath)) {
+                    try (PdfSource input = spoolStandardInput(options)) {
+                        SplitConfiguration config = new JsonConfigurationReader().readConfiguration(configurationPath);
+                        entries = service.splitPdfToArchive(input, config, out, format);
+                    }
+                } else {
+                    entries = service.splitPdfToArchive(inputPdfPath, configurationPath, out, format);
+                }
+            }
+            
+            messages.println("PDF splitting completed successfully!");
+            messages.println("Archive entries:");
+            for (String entry : entries) {
+                messages.println("  " + entry);
+            }
+            return 0;
+            
+        } catch (PdfSplitterException | IOException e) {
+            logger.error("PDF splitting failed: {}", e.getMessage(), e);
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Runs every entry of a batch manifest through a single shared splitter service.
+     * 
+     * @return the process exit code
+     */
+    private static int runBatch(String manifestPath, int jobs, SplitOptions options) {
+        try {
+            logger.info("Starting PDF Splitter Application in batch mode");
+            
+            List<BatchItem> items = new BatchManifestReader().readManifest(manifestPath);
+            PdfSplitterService service = new PdfSplitterService(new FileNamingService(), options);
+            BatchSummary summary = new BatchSplitService(service, jobs)
+                .run(items, result -> System.out.println(result.toStatusLine()));
+            
+            System.out.printf("Batch completed: %d items, %d succeeded, %d failed, %d files in %.1f s "
+                              + "(%.2f items/s, %.2f files/s)%n",
+                              summary.getTotalItems(), summary.getSucceeded(), summary.getFailed(),
+                              summary.getOutputFileCount(), summary.getElapsedMillis() / 1000.0,
+                              summary.getItemsPerSecond(), summary.getFilesPerSecond());
+            
+            return summary.getFailed() == 0 ? 0 : 2;
+            
+        } catch (PdfSplitterException e) {
+            logger.error("Batch failed: {}", e.getMessage(), e);
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Loads one PDF and applies every configuration to it, each into its own output directory.
+     * 
+     * @param configurationsAndOutputs alternating configuration paths and output directories
+     * @return the process exit code, which is 2 if any configuration failed
+     */
+    private static int runFanOut(String inputPdfPath, List<String> configurationsAndOutputs, SplitOptions options) {
+        try {
+            logger.info("Starting PDF Splitter Application in fan-out mode");
+            
+            JsonConfigurationReader reader = new JsonConfigurationReader();
+            Map<String, SplitConfiguration> configurations = new LinkedHashMap<>();
+            for (int i = 0; i < configurationsAndOutputs.size(); i += 2) {
+                String outputDirectory = configurationsAndOutputs.get(i + 1);
+                if (configurations.put(outputDirectory, reader.readConfiguration(configurationsAndOutputs.get(i))) != null) {
+                    throw new InvalidConfigurationException("Output directory given more than once: " + outputDirectory);
+                }
+            }
+            
+            PdfSplitterService service = new PdfSplitterService(new FileNamingService(), options);
+            List<FanOutResult> results;
+            if (STANDARD_INPUT.equals(inputPdfPath)) {
+                try (PdfSource input = spoolStandardInput(options)) {
+                    results = service.splitPdfWithConfigurations(input, configurations);
+                }
+            } else {
+                results = service.splitPdfWithConfigurations(inputPdfPath, configurations);
+            }
+            
+            int failed = 0;
+            for (FanOutResult result : results) {
+                System.out.println(result.toStatusLine());
+                for (String file : result.getOutputFiles()) {
+                    System.out.println("  " + file);
+                }
+                if (!result.isSuccess()) {
+                    failed++;
+                }
+            }
+            System.out.printf("Fan-out completed: %d configurations, %d succeeded, %d failed%n",
+                              results.size(), results.size() - failed, failed);
+            return failed == 0 ? 0 : 2;
+            
+        } catch (PdfSplitterException | IOException e) {
+            logger.error("Fan-out failed: {}", e.getMessage(), e);
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Splits every PDF and configuration pair dropped into a directory until the JVM is shut down.
+     * 
+     * @return the process exit code
+     */
+    private static int runWatch(String watchDirectory, String outputDirectory, int concurrency, int queueCapacity,
+                                String metricsPath, SplitOptions options) {
+        try {
+            logger.info("Starting PDF Splitter Application in watch mode");
+            
+            PdfSplitterService service = new PdfSplitterService(new FileNamingService(), options);
+            WatchFolderService watcher = new WatchFolderService(service, Paths.get(watchDirectory), 
+                Paths.get(outputDirectory), concurrency, Math.max(1, queueCapacity), 
+                WATCH_SETTLE_MILLIS, WATCH_REPORT_INTERVAL_MILLIS);
+            
+            CountDownLatch stopped = new CountDownLatch(1);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                watcher.stop(30);
+                service.close();
+                writeMetrics(0, metricsPath, options);
+                stopped.countDown();
+            }));
+            watcher.start();
+            System.out.println("Watching " + watchDirectory + " for PDF files with a sibling JSON configuration");
+            
+            stopped.await();
+            return 0;
+            
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Watch failed: {}", e.getMessage(), e);
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    /**
+     * Runs the HTTP split service on the loopback interface until the JVM is shut down.
+     * 
+     * @return the process exit code
+     */
+    private static int runServer(int port, int concurrency, int queueCapacity, String workDirectory, String outputRoot,
+                                 SplitOptions options) {
+        try {
+            logger.info("Starting PDF Splitter Application in server mode");
+            
+            PdfSplitterService service = new PdfSplitterService(new FileNamingService(), options);
+            SplitHttpServer server = new SplitHttpServer(service, 
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 
+                concurrency, queueCapacity, workDirectory, outputRoot);
+            server.exposeMetrics((InMemorySplitMetrics) options.getMetrics());
+            
+            CountDownLatch stopped = new CountDownLatch(1);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop(30);
+                service.close();
+                stopped.countDown();
+            }));
+            server.start();
+            System.out.println("Split server listening on http://localhost:" + server.getPort() + "/split");
+            
+            stopped.await();
+            return 0;
+            
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Server failed: {}", e.getMessage(), e);
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    /**
+     * Reads the PDF from standard input, keeping up to the memory budget (or a default) in memory
+     * and spilling the rest to the scratch directory.
+     */
+    private static PdfSource spoolStandardInput(SplitOptions options) throws IOException {
+        long memoryLimit = options.isMemoryBounded() ? options.getMemoryBudgetBytes() : PdfSource.DEFAULT_SPOOL_MEMORY_BYTES;
+        File scratchDirectory = options.getScratchDirectory() != null ? new File(options.getScratchDirectory()) : null;
+        return PdfSource.spool(System.in, memoryLimit, scratchDirectory);
+    }
+
+    private static String requireValue(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for option " + option);
+        }
+        return args[index];
+    }
+
+    /**
+     * Parses a byte size such as {@code 1048576}, {@code 512k}, {@code 256m} or {@code 2g}.
+     */
+    static long parseSize(String value) {
+        String trimmed = value.trim().toLowerCase();
+        long multiplier = 1;
+        char unit = trimmed.isEmpty() ? ' ' : trimmed.charAt(trimmed.length() - 1);
+        if (unit == 'k' || unit == 'm' || unit == 'g') {
+            multiplier = unit == 'k' ? 1024L : unit == 'm' ? 1024L * 1024 : 1024L * 1024 * 1024;
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        try {
+            return Long.parseLong(trimmed) * multiplier;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid size: " + value);
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: java -jar pdf-splitter.jar [options] <input-pdf|-> <config-json> <output-directory>");
+        System.err.println("       java -jar pdf-splitter.jar [options] --archive <file.zip|file.tar|-> <input-pdf|-> <config-json>");
+        System.err.println("       java -jar pdf-splitter.jar [options] --check <input-pdf|-> [config-json]");
+        System.err.println("       java -jar pdf-splitter.jar [options] --fan-out <input-pdf|-> <config-json> <output-directory> [<config-json> <output-directory>...]");
+        System.err.println("       java -jar pdf-splitter.jar [options] --batch <manifest.csv|manifest.ndjson>");
+        System.err.println("       java -jar pdf-splitter.jar [options] --serve <port>");
+        System.err.println("       java -jar pdf-splitter.jar [options] --watch <drop-directory> <output-directory>");
+        System.err.println("  <input-pdf>             the PDF to split, or '-' to read it from stdin (held in memory within");
+        System.err.println("                          --memory-budget, else 64m, and spooled to a scratch file beyond that)");
+        System.err.println("Options:");
+        System.err.println("  --workers <n>           number of sections to extract concurrently (default 1)");
+        System.err.println("  --memory-budget <size>  low-memory mode: cap PDFBox buffers (e.g. 256m) and spill to scratch files");
+        System.err.println("  --scratch-dir <dir>     directory for scratch files in low-memory mode (default: system temp)");
+        System.err.println("  --save-profile <p>      fast (no compression), default, or compact (smallest output)");
+        System.err.println("  --prune-resources       keep only the fonts, images and other resources each page actually uses");
+        System.err.println("  --reuse-results         skip the split when the same PDF and config were already split into the output directory");
+        System.err.println("  --mmap                  memory-map the input PDF instead of reading it through a file buffer");
+        System.err.println("                          (inputs over 2 GB cannot be mapped and are read through the buffer)");
+        System.err.println("  --selective             resolve only the pages each section needs from the input PDF");
+        System.err.println("  --output-layout <l>     flat (default), hash (ab/cd/ subdirectories) or date-category (yyyy/MM/dd/category/)");
+        System.err.println("  --manifest              append path, pages, bytes and SHA-256 of each file to manifest.jsonl");
+        System.err.println("  --document-cache <size> keep parsed input PDFs open between splits, up to about <size> of input (e.g. 2g)");
+        System.err.println("  --metrics <file|->      write phase timings and counters in Prometheus text format to a file, or stderr with '-'");
+        System.err.println("  --archive <file|->      write all sections into one ZIP/TAR archive file, or to stdout with '-'");
+        System.err.println("  --archive-format <fmt>  zip or tar (default: from the archive file name, else zip)");
+        System.err.println("  --check                 report page count and encryption, and check the config fits, without splitting");
+        System.err.println("  --fan-out               load the PDF once and apply each config into its own output directory");
+        System.err.println("  --batch <manifest>      process every input,config,output entry of a CSV or NDJSON manifest");
+        System.err.println("  --jobs <n>              batch entries, server requests or watched PDFs processed concurrently (default: CPU count)");
+        System.err.println("  --watch <dir>           split each name.pdf dropped into <dir> with its name.json, then move both to done/ or failed/");
+        System.err.println("  --serve <port>          run a local HTTP split service on 127.0.0.1:<port>");
+        System.err.println("  --queue <n>             server requests or watched PDFs allowed to wait for a worker (default 64)");
+        System.err.println("  --work-dir <dir>        server directory for uploads and default outputs (default: system temp)");
+        System.err.println("  --output-root <dir>     let server requests choose an output directory below <dir> with output=<subdir>");
+        System.err.println("Example: java -jar pdf-splitter.jar --workers 4 input.pdf config.json ./output/");
     }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package chongwm.utils.pdf.exception;
+
+/**
+ * Exception thrown when a split is stopped through its cancellation token.
+ */
+public class SplitCancelledException extends PdfSplitterException {
+    
+    public SplitCancelledException(String message) {
+        super(message);
+    }
+}
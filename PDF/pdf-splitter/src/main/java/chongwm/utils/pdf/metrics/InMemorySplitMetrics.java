@@ -0,0 +1,98 @@
+package chongwm.utils.pdf.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps split metrics in memory, with a {@link LatencyHistogram} per phase and a counter per
+ * {@link SplitCounter}, and renders them in the Prometheus text exposition format. No external
+ * service is involved; the text can be written to a file, logged or served over HTTP.
+ */
+public class InMemorySplitMetrics implements SplitMetrics {
+
+    private static final String PREFIX = "pdf_splitter_";
+
+    private final Map<SplitPhase, LatencyHistogram> histograms = new EnumMap<>(SplitPhase.class);
+    private final Map<SplitCounter, LongAdder> counters = new EnumMap<>(SplitCounter.class);
+
+    public InMemorySplitMetrics() {
+        // Both maps are fully populated here and only read afterwards, so they need no locking
+        for (SplitPhase phase : SplitPhase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+        for (SplitCounter counter : SplitCounter.values()) {
+            counters.put(counter, new LongAdder());
+        }
+    }
+
+    @Override
+    public void recordTime(SplitPhase phase, long nanos) {
+        histograms.get(phase).record(nanos);
+    }
+
+    @Override
+    public void increment(SplitCounter counter, long amount) {
+        counters.get(counter).add(amount);
+    }
+
+    public LatencyHistogram getHistogram(SplitPhase phase) {
+        return histograms.get(phase);
+    }
+
+    public long getCount(SplitCounter counter) {
+        return counters.get(counter).sum();
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format (version 0.0.4).
+     *
+     * @param out the destination
+     * @throws IOException if writing fails
+     */
+    public void writePrometheus(Appendable out) throws IOException {
+        String histogramName = PREFIX + "phase_seconds";
+        out.append("# HELP ").append(histogramName).append(" Time spent in each split phase.\n");
+        out.append("# TYPE ").append(histogramName).append(" histogram\n");
+        for (SplitPhase phase : SplitPhase.values()) {
+            LatencyHistogram histogram = histograms.get(phase);
+            String label = "phase=\"" + phase.getLabel() + "\"";
+            long[] cumulative = histogram.getCumulativeCounts();
+            for (int i = 0; i < LatencyHistogram.BUCKET_SECONDS.length; i++) {
+                out.append(histogramName).append("_bucket{").append(label)
+                   .append(",le=\"").append(Double.toString(LatencyHistogram.BUCKET_SECONDS[i])).append("\"} ")
+                   .append(Long.toString(cumulative[i])).append('\n');
+            }
+            out.append(histogramName).append("_bucket{").append(label).append(",le=\"+Inf\"} ")
+               .append(Long.toString(cumulative[cumulative.length - 1])).append('\n');
+            out.append(histogramName).append("_sum{").append(label).append("} ")
+               .append(Double.toString(histogram.getSumNanos() / 1e9)).append('\n');
+            out.append(histogramName).append("_count{").append(label).append("} ")
+               .append(Long.toString(histogram.getCount())).append('\n');
+        }
+
+        for (SplitCounter counter : SplitCounter.values()) {
+            String name = PREFIX + counter.getLabel() + "_total";
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append(name).append(' ').append(Long.toString(getCount(counter))).append('\n');
+        }
+    }
+
+    /**
+     * Returns all metrics in the Prometheus text exposition format.
+     *
+     * @return the metrics text
+     */
+    public String toPrometheusText() {
+        StringBuilder text = new StringBuilder();
+        try {
+            writePrometheus(text);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,103 @@
+package chongwm.utils.pdf.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations with fixed bucket bounds, from one millisecond to one
+ * minute. Recording is a short scan of the bounds plus a {@link LongAdder} increment, so it
+ * stays cheap under contention.
+ */
+public class LatencyHistogram {
+
+    /** Upper bounds of the finite buckets, in seconds. */
+    static final double[] BUCKET_SECONDS = {
+        0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60
+    };
+
+    private static final long[] BUCKET_NANOS = new long[BUCKET_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+            BUCKET_NANOS[i] = (long) (BUCKET_SECONDS[i] * 1_000_000_000L);
+        }
+    }
+
+    /** One adder per finite bucket plus one for overflow; counts are not cumulative. */
+    private final LongAdder[] buckets = new LongAdder[BUCKET_NANOS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos elapsed time in nanoseconds
+     */
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        count.increment();
+        sumNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns the cumulative count of recordings at or below each bucket bound, followed by the
+     * total count for the {@code +Inf} bucket.
+     *
+     * @return cumulative bucket counts
+     */
+    public long[] getCumulativeCounts() {
+        long[] cumulative = new long[buckets.length];
+        long running = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            running += buckets[i].sum();
+            cumulative[i] = running;
+        }
+        return cumulative;
+    }
+
+    /**
+     * Returns the upper bound, in seconds, of the bucket containing the given quantile, or
+     * {@code Double.POSITIVE_INFINITY} if it falls beyond the last bound.
+     *
+     * @param quantile a value between 0 and 1
+     * @return the bucket bound, or 0 if nothing was recorded
+     */
+    public double getQuantileUpperBoundSeconds(double quantile) {
+        long[] cumulative = getCumulativeCounts();
+        long total = cumulative[cumulative.length - 1];
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+            if (cumulative[i] >= rank) {
+                return BUCKET_SECONDS[i];
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+}
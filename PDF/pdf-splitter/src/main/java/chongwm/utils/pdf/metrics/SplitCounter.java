@@ -0,0 +1,36 @@
+package chongwm.utils.pdf.metrics;
+
+/**
+ * Monotonic counters recorded during splits.
+ */
+public enum SplitCounter {
+    /** Size of every source file loaded, counted again for each reload. */
+    BYTES_READ("bytes_read"),
+    /** Bytes of section output written. */
+    BYTES_WRITTEN("bytes_written"),
+    /** Pages copied into section documents. */
+    PAGES_COPIED("pages_copied"),
+    /** Sections written. */
+    SECTIONS_WRITTEN("sections_written"),
+    /** Source documents taken already parsed from the document cache. */
+    DOCUMENT_CACHE_HITS("document_cache_hits"),
+    /** Source documents parsed because the document cache did not hold them, or held them in use. */
+    DOCUMENT_CACHE_MISSES("document_cache_misses"),
+    /** Parsed source documents closed to keep the document cache within its budget. */
+    DOCUMENT_CACHE_EVICTIONS("document_cache_evictions");
+
+    private final String label;
+
+    SplitCounter(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns the name used for this counter in exported metrics.
+     *
+     * @return the snake-case counter name
+     */
+    public String getLabel() {
+        return label;
+    }
+}
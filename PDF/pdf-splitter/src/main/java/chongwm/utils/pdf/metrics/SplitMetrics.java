@@ -0,0 +1,54 @@
+package chongwm.utils.pdf.metrics;
+
+/**
+ * Receives timings and counts from {@code PdfSplitterService}. Implementations are called from
+ * every worker thread and must be thread-safe.
+ *
+ * <p>{@link #NONE} is the default. When it is configured the service does not even read the
+ * clock, so disabled metrics cost nothing.
+ */
+public interface SplitMetrics {
+
+    /** Metrics sink that records nothing. */
+    SplitMetrics NONE = new SplitMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void recordTime(SplitPhase phase, long nanos) {
+            // disabled
+        }
+
+        @Override
+        public void increment(SplitCounter counter, long amount) {
+            // disabled
+        }
+    };
+
+    /**
+     * Returns whether this sink records anything. The service skips timing when it does not.
+     *
+     * @return {@code true} if metrics are recorded
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Records the duration of one occurrence of a phase.
+     *
+     * @param phase the phase
+     * @param nanos elapsed time in nanoseconds
+     */
+    void recordTime(SplitPhase phase, long nanos);
+
+    /**
+     * Adds to a counter.
+     *
+     * @param counter the counter
+     * @param amount the amount to add
+     */
+    void increment(SplitCounter counter, long amount);
+}
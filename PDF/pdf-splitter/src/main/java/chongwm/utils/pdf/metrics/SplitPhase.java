@@ -0,0 +1,26 @@
+package chongwm.utils.pdf.metrics;
+
+/**
+ * Timed phases of a split.
+ */
+public enum SplitPhase {
+    /** Parsing the source PDF, once per split or once per section in low-memory mode. */
+    LOAD,
+    /** Checking the configuration against the loaded document. */
+    VALIDATE,
+    /** Copying (and optionally pruning) the pages of one section. */
+    COPY,
+    /** Saving one section, including compaction. */
+    SAVE,
+    /** Writing one section from start to finish. */
+    SECTION;
+
+    /**
+     * Returns the label used for this phase in exported metrics.
+     *
+     * @return the lower-case phase name
+     */
+    public String getLabel() {
+        return name().toLowerCase();
+    }
+}
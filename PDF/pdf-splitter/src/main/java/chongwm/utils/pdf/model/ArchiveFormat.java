@@ -0,0 +1,35 @@
+package chongwm.utils.pdf.model;
+
+/**
+ * Container formats supported for archive output.
+ */
+public enum ArchiveFormat {
+    ZIP,
+    TAR;
+
+    /**
+     * Parses a format name such as {@code zip} or {@code tar}, ignoring case.
+     *
+     * @param name the format name
+     * @return the matching format
+     * @throws IllegalArgumentException if the name is not a supported format
+     */
+    public static ArchiveFormat fromName(String name) {
+        for (ArchiveFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported archive format: " + name);
+    }
+
+    /**
+     * Guesses the format from an archive file name, defaulting to ZIP.
+     *
+     * @param fileName the archive file name
+     * @return TAR for {@code .tar} files, ZIP otherwise
+     */
+    public static ArchiveFormat fromFileName(String fileName) {
+        return fileName.toLowerCase().endsWith(".tar") ? TAR : ZIP;
+    }
+}
@@ -0,0 +1,41 @@
+package chongwm.utils.pdf.model;
+
+/**
+ * A single input/configuration/output triple from a batch manifest.
+ */
+public class BatchItem {
+
+    private final int lineNumber;
+    private final String inputPdfPath;
+    private final String configurationPath;
+    private final String outputDirectory;
+
+    public BatchItem(int lineNumber, String inputPdfPath, String configurationPath, String outputDirectory) {
+        this.lineNumber = lineNumber;
+        this.inputPdfPath = inputPdfPath;
+        this.configurationPath = configurationPath;
+        this.outputDirectory = outputDirectory;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public String getInputPdfPath() {
+        return inputPdfPath;
+    }
+
+    public String getConfigurationPath() {
+        return configurationPath;
+    }
+
+    public String getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchItem{line=%d, input='%s', config='%s', output='%s'}",
+                lineNumber, inputPdfPath, configurationPath, outputDirectory);
+    }
+}
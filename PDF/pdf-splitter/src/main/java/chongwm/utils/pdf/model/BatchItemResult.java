@@ -0,0 +1,64 @@
+package chongwm.utils.pdf.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of processing one batch manifest entry.
+ */
+public class BatchItemResult {
+
+    private final BatchItem item;
+    private final List<String> outputFiles;
+    private final String errorMessage;
+    private final long elapsedMillis;
+
+    private BatchItemResult(BatchItem item, List<String> outputFiles, String errorMessage, long elapsedMillis) {
+        this.item = item;
+        this.outputFiles = outputFiles;
+        this.errorMessage = errorMessage;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public static BatchItemResult success(BatchItem item, List<String> outputFiles, long elapsedMillis) {
+        return new BatchItemResult(item, outputFiles, null, elapsedMillis);
+    }
+
+    public static BatchItemResult failure(BatchItem item, String errorMessage, long elapsedMillis) {
+        return new BatchItemResult(item, Collections.emptyList(), errorMessage, elapsedMillis);
+    }
+
+    public BatchItem getItem() {
+        return item;
+    }
+
+    public boolean isSuccess() {
+        return errorMessage == null;
+    }
+
+    public List<String> getOutputFiles() {
+        return outputFiles;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Formats the result as a single tab-separated status line.
+     *
+     * @return the status line
+     */
+    public String toStatusLine() {
+        if (isSuccess()) {
+            return String.format("OK\t%d\t%s\t%d files\t%d ms",
+                    item.getLineNumber(), item.getInputPdfPath(), outputFiles.size(), elapsedMillis);
+        }
+        return String.format("FAILED\t%d\t%s\t%s\t%d ms",
+                item.getLineNumber(), item.getInputPdfPath(), errorMessage, elapsedMillis);
+    }
+}
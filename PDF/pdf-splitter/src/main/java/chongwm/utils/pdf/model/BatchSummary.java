@@ -0,0 +1,56 @@
+package chongwm.utils.pdf.model;
+
+import java.util.List;
+
+/**
+ * Aggregate statistics for a completed batch run.
+ */
+public class BatchSummary {
+
+    private final List<BatchItemResult> results;
+    private final long elapsedMillis;
+
+    public BatchSummary(List<BatchItemResult> results, long elapsedMillis) {
+        this.results = results;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<BatchItemResult> getResults() {
+        return results;
+    }
+
+    public int getTotalItems() {
+        return results.size();
+    }
+
+    public int getSucceeded() {
+        return (int) results.stream().filter(BatchItemResult::isSuccess).count();
+    }
+
+    public int getFailed() {
+        return getTotalItems() - getSucceeded();
+    }
+
+    public int getOutputFileCount() {
+        return results.stream().mapToInt(result -> result.getOutputFiles().size()).sum();
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public double getItemsPerSecond() {
+        return elapsedMillis == 0 ? 0.0 : getTotalItems() * 1000.0 / elapsedMillis;
+    }
+
+    public double getFilesPerSecond() {
+        return elapsedMillis == 0 ? 0.0 : getOutputFileCount() * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchSummary{items=%d, succeeded=%d, failed=%d, files=%d, elapsed=%d ms, "
+                + "items/s=%.2f, files/s=%.2f}", getTotalItems(), getSucceeded(), getFailed(),
+                getOutputFileCount(), elapsedMillis, getItemsPerSecond(), getFilesPerSecond());
+    }
+}
@@ -0,0 +1,68 @@
+package chongwm.utils.pdf.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of applying one of several configurations to a PDF that was loaded once.
+ */
+public class FanOutResult {
+
+    private final String outputDirectory;
+    private final List<String> outputFiles;
+    private final String errorMessage;
+    private final long elapsedMillis;
+
+    private FanOutResult(String outputDirectory, List<String> outputFiles, String errorMessage, long elapsedMillis) {
+        this.outputDirectory = outputDirectory;
+        this.outputFiles = outputFiles;
+        this.errorMessage = errorMessage;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public static FanOutResult success(String outputDirectory, List<String> outputFiles, long elapsedMillis) {
+        return new FanOutResult(outputDirectory, outputFiles, null, elapsedMillis);
+    }
+
+    public static FanOutResult failure(String outputDirectory, String errorMessage, long elapsedMillis) {
+        return new FanOutResult(outputDirectory, Collections.emptyList(), errorMessage, elapsedMillis);
+    }
+
+    public String getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public boolean isSuccess() {
+        return errorMessage == null;
+    }
+
+    public List<String> getOutputFiles() {
+        return outputFiles;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Returns the time spent validating and extracting this configuration, excluding the
+     * shared load of the input.
+     *
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Formats the result as a single tab-separated status line.
+     *
+     * @return the status line
+     */
+    public String toStatusLine() {
+        if (isSuccess()) {
+            return String.format("OK\t%s\t%d files\t%d ms", outputDirectory, outputFiles.size(), elapsedMillis);
+        }
+        return String.format("FAILED\t%s\t%s\t%d ms", outputDirectory, errorMessage, elapsedMillis);
+    }
+}
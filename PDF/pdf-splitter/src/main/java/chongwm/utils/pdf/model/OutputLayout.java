@@ -0,0 +1,42 @@
+package chongwm.utils.pdf.model;
+
+/**
+ * How split files are spread over subdirectories of the output directory. A flat directory
+ * holding millions of files makes every lookup and listing slow on ext4 and NFS; the sharded
+ * layouts keep each directory small.
+ */
+public enum OutputLayout {
+
+    /**
+     * All files directly in the output directory.
+     */
+    FLAT,
+
+    /**
+     * Two levels of subdirectories named after a hash of the input and section, such as
+     * {@code 3f/a2/}, giving 65,536 evenly filled leaf directories.
+     */
+    HASH,
+
+    /**
+     * Subdirectories for the day of the split and the section category, such as
+     * {@code 2024/05/17/invoice/}.
+     */
+    DATE_CATEGORY;
+
+    /**
+     * Parses a layout name such as {@code hash} or {@code date-category}, ignoring case.
+     *
+     * @param name the layout name
+     * @return the matching layout
+     * @throws IllegalArgumentException if the name is not a known layout
+     */
+    public static OutputLayout fromName(String name) {
+        for (OutputLayout layout : values()) {
+            if (layout.name().replace('_', '-').equalsIgnoreCase(name) || layout.name().equalsIgnoreCase(name)) {
+                return layout;
+            }
+        }
+        throw new IllegalArgumentException("Unknown output layout: " + name);
+    }
+}
@@ -0,0 +1,106 @@
+package chongwm.utils.pdf.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What a preflight learned about an input PDF from its trailer and page tree root, and the
+ * problems found when checking a split configuration against it.
+ */
+public class PreflightReport {
+
+    private final String source;
+    private final long bytes;
+    private final float version;
+    private final int pageCount;
+    private final boolean encrypted;
+    private final boolean repairNeeded;
+    private final List<String> problems;
+
+    public PreflightReport(String source, long bytes, float version, int pageCount, boolean encrypted,
+                           boolean repairNeeded, List<String> problems) {
+        this.source = source;
+        this.bytes = bytes;
+        this.version = version;
+        this.pageCount = pageCount;
+        this.encrypted = encrypted;
+        this.repairNeeded = repairNeeded;
+        this.problems = Collections.unmodifiableList(problems);
+    }
+
+    /**
+     * Returns a copy of this report with the given configuration problems.
+     *
+     * @param problems the problem descriptions
+     * @return the new report
+     */
+    public PreflightReport withProblems(List<String> problems) {
+        return new PreflightReport(source, bytes, version, pageCount, encrypted, repairNeeded, problems);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the PDF version from the header, or from the catalog when it overrides the header.
+     *
+     * @return the PDF version, or 0 when the document could not be opened
+     */
+    public float getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the page count from {@code /Count} of the page tree root.
+     *
+     * @return the page count, or {@link SplitConfiguration#UNKNOWN_PAGE_COUNT} when the
+     *         document could not be opened
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Returns whether the trailer has an {@code /Encrypt} dictionary.
+     *
+     * @return {@code true} if the document is encrypted
+     */
+    public boolean isEncrypted() {
+        return encrypted;
+    }
+
+    /**
+     * Returns whether the cross-reference data was damaged, so the document could only be
+     * opened by scanning the whole file for objects.
+     *
+     * @return {@code true} if the document needed repair
+     */
+    public boolean isRepairNeeded() {
+        return repairNeeded;
+    }
+
+    public List<String> getProblems() {
+        return problems;
+    }
+
+    /**
+     * Returns whether the document can be opened and the configuration fits it.
+     *
+     * @return {@code true} if no problems were found
+     */
+    public boolean isPassed() {
+        return problems.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PreflightReport{source='%s', bytes=%d, version=%.1f, pages=%d, encrypted=%s, "
+                + "repairNeeded=%s, problems=%s}", source, bytes, version, pageCount, encrypted, repairNeeded,
+                problems);
+    }
+}
@@ -0,0 +1,39 @@
+package chongwm.utils.pdf.model;
+
+/**
+ * Trade-off between save speed and output size for split sections.
+ */
+public enum SaveProfile {
+
+    /**
+     * Fastest save: no object streams and no extra compression work. Output is larger.
+     */
+    FAST,
+
+    /**
+     * PDFBox default compression with object streams.
+     */
+    DEFAULT,
+
+    /**
+     * Smallest output: large object streams, Flate compression of unfiltered streams and
+     * merging of byte-identical streams. Slower to save.
+     */
+    COMPACT;
+
+    /**
+     * Parses a profile name such as {@code fast}, ignoring case.
+     *
+     * @param name the profile name
+     * @return the matching profile
+     * @throws IllegalArgumentException if the name is not a known profile
+     */
+    public static SaveProfile fromName(String name) {
+        for (SaveProfile profile : values()) {
+            if (profile.name().equalsIgnoreCase(name)) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown save profile: " + name);
+    }
+}
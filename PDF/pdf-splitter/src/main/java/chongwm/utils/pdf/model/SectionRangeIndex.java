@@ -0,0 +1,54 @@
+package chongwm.utils.pdf.model;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index of non-overlapping section page ranges that are added one at a time, for callers that
+ * see sections as a stream and want to reject the first overlap as soon as it arrives.
+ * Lookups and insertions are O(log n).
+ */
+public class SectionRangeIndex {
+
+    private final TreeMap<Integer, DocumentSection> byStartPage = new TreeMap<>();
+
+    /**
+     * Adds a section unless it overlaps one already added.
+     *
+     * @param section an individually valid section
+     * @throws IllegalArgumentException if the section overlaps an earlier one
+     */
+    public void add(DocumentSection section) {
+        DocumentSection overlapping = findOverlap(section);
+        if (overlapping != null) {
+            throw new IllegalArgumentException(
+                String.format("Page ranges overlap between documents: %s and %s",
+                              overlapping.toString(), section.toString()));
+        }
+        byStartPage.put(section.getStartPage(), section);
+    }
+
+    /**
+     * Returns a section already added whose range overlaps the given one. Because the stored
+     * ranges never overlap each other, only the neighbours on either side of the start page
+     * need to be checked.
+     *
+     * @param section the section to check
+     * @return an overlapping section, or {@code null} if there is none
+     */
+    public DocumentSection findOverlap(DocumentSection section) {
+        Map.Entry<Integer, DocumentSection> before = byStartPage.floorEntry(section.getStartPage());
+        if (before != null && before.getValue().getEndPage() >= section.getStartPage()) {
+            return before.getValue();
+        }
+        Map.Entry<Integer, DocumentSection> after = byStartPage.ceilingEntry(section.getStartPage());
+        if (after != null && after.getKey() <= section.getEndPage()) {
+            return after.getValue();
+        }
+        return null;
+    }
+
+    public int size() {
+        return byStartPage.size();
+    }
+}
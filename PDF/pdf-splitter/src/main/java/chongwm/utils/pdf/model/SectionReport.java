@@ -0,0 +1,72 @@
+package chongwm.utils.pdf.model;
+
+/**
+ * Size and timing of one written section.
+ */
+public class SectionReport {
+
+    private final DocumentSection section;
+    private final String outputName;
+    private final long bytesWritten;
+    private final long saveNanos;
+    private final String sha256;
+
+    public SectionReport(DocumentSection section, String outputName, long bytesWritten, long saveNanos) {
+        this(section, outputName, bytesWritten, saveNanos, null);
+    }
+
+    public SectionReport(DocumentSection section, String outputName, long bytesWritten, long saveNanos,
+                         String sha256) {
+        this.section = section;
+        this.outputName = outputName;
+        this.bytesWritten = bytesWritten;
+        this.saveNanos = saveNanos;
+        this.sha256 = sha256;
+    }
+
+    public DocumentSection getSection() {
+        return section;
+    }
+
+    /**
+     * Returns the file path or archive entry name the section was written to.
+     *
+     * @return the output name
+     */
+    public String getOutputName() {
+        return outputName;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the time spent preparing and serializing the section document, excluding
+     * page copying.
+     *
+     * @return the save time in nanoseconds
+     */
+    public long getSaveNanos() {
+        return saveNanos;
+    }
+
+    public long getSaveMillis() {
+        return saveNanos / 1_000_000;
+    }
+
+    /**
+     * Returns the SHA-256 digest of the section PDF, computed while it was written.
+     *
+     * @return the digest as lower-case hex, or {@code null} if checksums were not enabled
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SectionReport{output='%s', pages=%d-%d, bytes=%d, saveMillis=%d, sha256=%s}",
+                outputName, section.getStartPage(), section.getEndPage(), bytesWritten, getSaveMillis(), sha256);
+    }
+}
@@ -1,13 +1,22 @@
 package chongwm.utils.pdf.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.PriorityQueue;
 
 /**
  * Represents the complete configuration for PDF splitting.
  */
 public class SplitConfiguration {
     
+    /** Page count to pass to {@link #validate(int)} before the document has been opened. */
+    public static final int UNKNOWN_PAGE_COUNT = -1;
+    
+    private static final int MAX_REPORTED_PROBLEMS = 50;
+    
     @JsonProperty("documents")
     private List<DocumentSection> documents;
 
@@ -33,6 +42,18 @@ public class SplitConfiguration {
      * @throws IllegalArgumentException if the configuration is invalid
      */
     public void validate() {
+        validate(UNKNOWN_PAGE_COUNT);
+    }
+
+    /**
+     * Validates the entire configuration against a document with a known number of pages.
+     * Every overlapping pair and every section past the last page is counted in the message,
+     * and the first {@value #MAX_REPORTED_PROBLEMS} are described.
+     * 
+     * @param totalPages number of pages in the document, or {@link #UNKNOWN_PAGE_COUNT}
+     * @throws IllegalArgumentException if the configuration is invalid
+     */
+    public void validate(int totalPages) {
         if (documents == null || documents.isEmpty()) {
             throw new IllegalArgumentException("Documents list cannot be null or empty");
         }
@@ -42,24 +63,76 @@ public class SplitConfiguration {
             doc.validate();
         }
         
-        // Check for overlapping page ranges
-        for (int i = 0; i < documents.size(); i++) {
-            for (int j = i + 1; j < documents.size(); j++) {
-                DocumentSection doc1 = documents.get(i);
-                DocumentSection doc2 = documents.get(j);
-                
-                if (rangesOverlap(doc1.getStartPage(), doc1.getEndPage(), 
-                                doc2.getStartPage(), doc2.getEndPage())) {
-                    throw new IllegalArgumentException(
-                        String.format("Page ranges overlap between documents: %s and %s", 
-                                    doc1.toString(), doc2.toString()));
-                }
+        List<String> problems = new ArrayList<>();
+        long problemCount = collectRangeProblems(totalPages, problems, MAX_REPORTED_PROBLEMS);
+        if (problemCount == 1) {
+            throw new IllegalArgumentException(problems.get(0));
+        }
+        if (problemCount > 0) {
+            StringBuilder message = new StringBuilder()
+                .append(problemCount).append(" page range problems: ")
+                .append(String.join("; ", problems));
+            if (problems.size() < problemCount) {
+                message.append("; ... and ").append(problemCount - problems.size()).append(" more");
             }
+            throw new IllegalArgumentException(message.toString());
         }
     }
-    
-    private boolean rangesOverlap(int start1, int end1, int start2, int end2) {
-        return start1 <= end2 && start2 <= end1;
+
+    /**
+     * Finds every pair of overlapping sections and, when the page count is known, every section
+     * that ends past the last page. Sections must already be individually valid.
+     * 
+     * <p>Sections are swept in order of start page while the ones still open are kept in a
+     * heap ordered by end page, so this runs in O(n log n + k) for k overlapping pairs.
+     * 
+     * @param totalPages number of pages in the document, or {@link #UNKNOWN_PAGE_COUNT}
+     * @return problem descriptions, empty if the ranges are valid
+     */
+    public List<String> findRangeProblems(int totalPages) {
+        List<String> problems = new ArrayList<>();
+        collectRangeProblems(totalPages, problems, Integer.MAX_VALUE);
+        return problems;
+    }
+
+    /**
+     * Sweeps the sections as described for {@link #findRangeProblems(int)}, but only describes
+     * the first {@code limit} problems. Past the limit, the overlaps of a section are counted
+     * from the size of the heap without visiting it, so heavily overlapping configurations
+     * cost O(n log n) however many pairs they contain.
+     * 
+     * @param totalPages number of pages in the document, or {@link #UNKNOWN_PAGE_COUNT}
+     * @param problems receives the descriptions of the first {@code limit} problems
+     * @param limit the number of problems to describe
+     * @return the number of problems found
+     */
+    private long collectRangeProblems(int totalPages, List<String> problems, int limit) {
+        long problemCount = 0;
+        List<DocumentSection> byStart = new ArrayList<>(documents);
+        byStart.sort(Comparator.comparingInt(DocumentSection::getStartPage));
+        
+        PriorityQueue<DocumentSection> open = 
+            new PriorityQueue<>(Comparator.comparingInt(DocumentSection::getEndPage));
+        for (DocumentSection section : byStart) {
+            while (!open.isEmpty() && open.peek().getEndPage() < section.getStartPage()) {
+                open.poll();
+            }
+            for (Iterator<DocumentSection> it = open.iterator(); it.hasNext() && problems.size() < limit; ) {
+                problems.add(String.format("Page ranges overlap between documents: %s and %s", 
+                                           it.next().toString(), section.toString()));
+            }
+            problemCount += open.size();
+            open.add(section);
+            
+            if (totalPages != UNKNOWN_PAGE_COUNT && section.getEndPage() > totalPages) {
+                problemCount++;
+                if (problems.size() < limit) {
+                    problems.add(String.format("End page %d exceeds document page count %d for section %s",
+                                               section.getEndPage(), totalPages, section.toString()));
+                }
+            }
+        }
+        return problemCount;
     }
 
     @Override
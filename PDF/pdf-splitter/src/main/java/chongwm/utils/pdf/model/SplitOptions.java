@@ -0,0 +1,258 @@
+package chongwm.utils.pdf.model;
+
+import chongwm.utils.pdf.metrics.SplitMetrics;
+
+/**
+ * Tuning options controlling how a split is executed.
+ */
+public class SplitOptions {
+
+    private int workerCount = 1;
+    private long memoryBudgetBytes = -1;
+    private String scratchDirectory;
+    private SaveProfile saveProfile = SaveProfile.DEFAULT;
+    private boolean pruneResources;
+    private boolean reuseResults;
+    private boolean memoryMappedInput;
+    private boolean selectiveExtraction;
+    private OutputLayout outputLayout = OutputLayout.FLAT;
+    private boolean writeManifest;
+    private long documentCacheBytes;
+    private SplitMetrics metrics = SplitMetrics.NONE;
+    private int asyncConcurrency = Runtime.getRuntime().availableProcessors();
+
+    public SplitOptions() {
+        // Defaults reproduce the original single-threaded behaviour
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public void setWorkerCount(int workerCount) {
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Returns the number of bytes of main memory PDFBox may use for buffering stream data
+     * across all open documents of a split, or -1 for no limit. When a budget is set the
+     * splitter runs in low-memory mode: data beyond the budget goes to scratch files and
+     * the source is released after every section.
+     *
+     * @return the memory budget in bytes, or -1 if unrestricted
+     */
+    public long getMemoryBudgetBytes() {
+        return memoryBudgetBytes;
+    }
+
+    public void setMemoryBudgetBytes(long memoryBudgetBytes) {
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    public boolean isMemoryBounded() {
+        return memoryBudgetBytes >= 0;
+    }
+
+    /**
+     * Returns the directory for scratch files in low-memory mode, or {@code null} to use
+     * the system temporary directory.
+     *
+     * @return the scratch directory path
+     */
+    public String getScratchDirectory() {
+        return scratchDirectory;
+    }
+
+    public void setScratchDirectory(String scratchDirectory) {
+        this.scratchDirectory = scratchDirectory;
+    }
+
+    public SaveProfile getSaveProfile() {
+        return saveProfile;
+    }
+
+    public void setSaveProfile(SaveProfile saveProfile) {
+        this.saveProfile = saveProfile;
+    }
+
+    /**
+     * Returns whether each copied page keeps only the fonts, XObjects, graphics states,
+     * patterns and shadings its content actually uses, instead of the full shared resource
+     * dictionary of the source.
+     *
+     * @return {@code true} if unused resources are pruned
+     */
+    public boolean isPruneResources() {
+        return pruneResources;
+    }
+
+    public void setPruneResources(boolean pruneResources) {
+        this.pruneResources = pruneResources;
+    }
+
+    /**
+     * Returns whether a split whose input bytes and configuration match an earlier split into
+     * the same output directory returns that split's files instead of running again. Results
+     * are tracked in a small manifest next to the outputs.
+     *
+     * @return {@code true} if earlier results are reused
+     */
+    public boolean isReuseResults() {
+        return reuseResults;
+    }
+
+    public void setReuseResults(boolean reuseResults) {
+        this.reuseResults = reuseResults;
+    }
+
+    /**
+     * Returns the sink receiving per-phase timings and counters, {@link SplitMetrics#NONE} by
+     * default.
+     *
+     * @return the metrics sink
+     */
+    public SplitMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(SplitMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns whether input files given by path are memory-mapped instead of read through a
+     * buffered file handle. Mapping lets the operating system share the page cache between the
+     * handles of parallel workers.
+     *
+     * @return {@code true} if input files are memory-mapped
+     */
+    public boolean isMemoryMappedInput() {
+        return memoryMappedInput;
+    }
+
+    public void setMemoryMappedInput(boolean memoryMappedInput) {
+        this.memoryMappedInput = memoryMappedInput;
+    }
+
+    /**
+     * Returns whether sections are extracted selectively: each page is found by descending the
+     * page tree instead of resolving every page of the source, and copied without references
+     * that would drag pages outside its section into the output. Worth enabling when sections
+     * take a few pages out of a large document.
+     *
+     * @return {@code true} if sections are extracted selectively
+     */
+    public boolean isSelectiveExtraction() {
+        return selectiveExtraction;
+    }
+
+    public void setSelectiveExtraction(boolean selectiveExtraction) {
+        this.selectiveExtraction = selectiveExtraction;
+    }
+
+    /**
+     * Returns how split files are spread over subdirectories of the output directory,
+     * {@link OutputLayout#FLAT} by default.
+     *
+     * @return the output layout
+     */
+    public OutputLayout getOutputLayout() {
+        return outputLayout;
+    }
+
+    public void setOutputLayout(OutputLayout outputLayout) {
+        this.outputLayout = outputLayout;
+    }
+
+    /**
+     * Returns whether a SHA-256 digest of every section is computed while it is written, and
+     * each split into an output directory appends a line per file to {@code manifest.jsonl}
+     * there, so consumers can verify outputs without reading them twice.
+     *
+     * @return {@code true} if checksums and the manifest are written
+     */
+    public boolean isWriteManifest() {
+        return writeManifest;
+    }
+
+    public void setWriteManifest(boolean writeManifest) {
+        this.writeManifest = writeManifest;
+    }
+
+    /**
+     * Returns the budget for keeping parsed source documents open between splits, estimated
+     * from their file sizes, or 0 to close every source when its split ends. A long-running
+     * service that is sent the same input file again, unchanged, then skips parsing it. Least
+     * recently used documents are closed to stay within the budget.
+     *
+     * <p>In low-memory mode the source goes back to this cache after each section instead of
+     * being closed, so the cache budget, not the memory budget, bounds what it holds. The cache
+     * cannot be combined with {@link SaveProfile#COMPACT}, which rewrites source streams.
+     *
+     * @return the document cache budget in bytes, or 0 if disabled
+     */
+    public long getDocumentCacheBytes() {
+        return documentCacheBytes;
+    }
+
+    public void setDocumentCacheBytes(long documentCacheBytes) {
+        this.documentCacheBytes = documentCacheBytes;
+    }
+
+    /**
+     * Returns the maximum number of splits submitted through {@code splitPdfAsync} that load
+     * and extract at the same time. Further submissions wait without holding a document.
+     *
+     * @return the asynchronous concurrency limit
+     */
+    public int getAsyncConcurrency() {
+        return asyncConcurrency;
+    }
+
+    public void setAsyncConcurrency(int asyncConcurrency) {
+        this.asyncConcurrency = asyncConcurrency;
+    }
+
+    /**
+     * Validates the options.
+     *
+     * @throws IllegalArgumentException if the options are invalid
+     */
+    public void validate() {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be greater than 0");
+        }
+        if (memoryBudgetBytes < -1) {
+            throw new IllegalArgumentException("Memory budget must be -1 (unrestricted) or at least 0 bytes");
+        }
+        if (saveProfile == null) {
+            throw new IllegalArgumentException("Save profile cannot be null");
+        }
+        if (outputLayout == null) {
+            throw new IllegalArgumentException("Output layout cannot be null");
+        }
+        if (documentCacheBytes < 0) {
+            throw new IllegalArgumentException("Document cache budget must be 0 (disabled) or more bytes");
+        }
+        if (documentCacheBytes > 0 && saveProfile == SaveProfile.COMPACT) {
+            throw new IllegalArgumentException(
+                "The document cache cannot be used with the compact save profile, which rewrites streams of the source");
+        }
+        if (asyncConcurrency < 1) {
+            throw new IllegalArgumentException("Async concurrency must be greater than 0");
+        }
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null, use SplitMetrics.NONE");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SplitOptions{workerCount=%d, memoryBudgetBytes=%d, scratchDirectory='%s', "
+                + "saveProfile=%s, pruneResources=%s, reuseResults=%s, memoryMappedInput=%s, selectiveExtraction=%s, "
+                + "outputLayout=%s, writeManifest=%s, documentCacheBytes=%d, asyncConcurrency=%d, metrics=%s}",
+                workerCount, memoryBudgetBytes, scratchDirectory, saveProfile, pruneResources, reuseResults,
+                memoryMappedInput, selectiveExtraction, outputLayout, writeManifest, documentCacheBytes,
+                asyncConcurrency, metrics.isEnabled() ? "enabled" : "none");
+    }
+}
@@ -0,0 +1,215 @@
+package chongwm.utils.pdf.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal streaming reader for {@code multipart/form-data} request bodies. Parts are read
+ * one after another straight from the request stream, so large uploads are never held in
+ * memory.
+ */
+class MultipartStream {
+
+    private static final Pattern FIELD_NAME = Pattern.compile("(?i)\\bname=\"([^\"]*)\"");
+    private static final int NONE = -2;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer = new byte[64 * 1024];
+    private int bufferPos;
+    private int bufferLen;
+
+    private boolean started;
+    private boolean finished;
+    private boolean partEnded = true;
+    private int matched;
+    private int replayPos;
+    private int replayLen;
+    private int pendingByte = NONE;
+    private String fieldName;
+
+    MultipartStream(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Extracts the boundary parameter from a multipart content type.
+     *
+     * @param contentType the Content-Type header value
+     * @return the boundary, or {@code null} if the content type is not multipart
+     */
+    static String boundaryOf(String contentType) {
+        if (contentType == null || !contentType.toLowerCase().startsWith("multipart/")) {
+            return null;
+        }
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.toLowerCase().startsWith("boundary=")) {
+                String boundary = trimmed.substring("boundary=".length());
+                if (boundary.length() > 1 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+                    boundary = boundary.substring(1, boundary.length() - 1);
+                }
+                return boundary.isEmpty() ? null : boundary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Advances to the next part, skipping whatever is left of the current one.
+     *
+     * @return {@code true} if a part is available, {@code false} after the closing delimiter
+     * @throws IOException if the body is malformed or cannot be read
+     */
+    boolean nextPart() throws IOException {
+        if (finished) {
+            return false;
+        }
+        if (!started) {
+            // The first delimiter is not preceded by CRLF; pretend it was so the
+            // preamble is consumed like an ordinary part body.
+            started = true;
+            partEnded = false;
+            matched = 2;
+        }
+        while (readBodyByte() != -1) {
+            // discard the rest of the current part
+        }
+
+        int first = readRaw();
+        int second = readRaw();
+        if (first == '-' && second == '-') {
+            finished = true;
+            return false;
+        }
+        // Skip transport padding up to the CRLF that ends the delimiter line
+        int previous = first;
+        int current = second;
+        while (!(previous == '\r' && current == '\n')) {
+            previous = current;
+            current = readRaw();
+        }
+
+        fieldName = null;
+        String header;
+        while (!(header = readHeaderLine()).isEmpty()) {
+            if (header.toLowerCase().startsWith("content-disposition:")) {
+                Matcher matcher = FIELD_NAME.matcher(header);
+                if (matcher.find()) {
+                    fieldName = matcher.group(1);
+                }
+            }
+        }
+        partEnded = false;
+        return true;
+    }
+
+    /**
+     * Returns the form field name of the current part.
+     *
+     * @return the field name, or {@code null} if the part has none
+     */
+    String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Returns a stream over the body of the current part. Closing it has no effect.
+     *
+     * @return the part body stream
+     */
+    InputStream getPartStream() {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                return readBodyByte();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                int count = 0;
+                int next;
+                while (count < len && (next = readBodyByte()) != -1) {
+                    b[off + count++] = (byte) next;
+                }
+                return count == 0 ? -1 : count;
+            }
+        };
+    }
+
+    private int readBodyByte() throws IOException {
+        if (partEnded) {
+            return -1;
+        }
+        if (replayPos < replayLen) {
+            return delimiter[replayPos++] & 0xff;
+        }
+        while (true) {
+            int b;
+            if (pendingByte != NONE) {
+                b = pendingByte;
+                pendingByte = NONE;
+            } else {
+                b = readRaw();
+            }
+
+            if (b == (delimiter[matched] & 0xff)) {
+                matched++;
+                if (matched == delimiter.length) {
+                    matched = 0;
+                    partEnded = true;
+                    return -1;
+                }
+                continue;
+            }
+            if (matched == 0) {
+                return b;
+            }
+
+            // Partial match: emit the matched prefix, then look at this byte again. The
+            // delimiter contains a single CR, so no match can start inside the prefix.
+            replayLen = matched;
+            replayPos = 1;
+            matched = 0;
+            pendingByte = b;
+            return delimiter[0] & 0xff;
+        }
+    }
+
+    private String readHeaderLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int previous = -1;
+        int current;
+        while ((current = readRaw()) != '\n' || previous != '\r') {
+            if (previous != -1) {
+                line.write(previous);
+            }
+            previous = current;
+            if (line.size() > 8192) {
+                throw new IOException("Multipart header line too long");
+            }
+        }
+        return line.toString(StandardCharsets.UTF_8.name());
+    }
+
+    private int readRaw() throws IOException {
+        if (bufferPos == bufferLen) {
+            bufferLen = in.read(buffer);
+            bufferPos = 0;
+            if (bufferLen <= 0) {
+                bufferLen = 0;
+                throw new EOFException("Unexpected end of multipart body");
+            }
+        }
+        return buffer[bufferPos++] & 0xff;
+    }
+}
@@ -0,0 +1,386 @@
+package chongwm.utils.pdf.server;
+
+import chongwm.utils.pdf.exception.InvalidConfigurationException;
+import chongwm.utils.pdf.exception.PdfSplitterException;
+import chongwm.utils.pdf.metrics.InMemorySplitMetrics;
+import chongwm.utils.pdf.model.SplitConfiguration;
+import chongwm.utils.pdf.service.PdfSplitterService;
+import chongwm.utils.pdf.util.JsonConfigurationReader;
+import chongwm.utils.pdf.util.JsonReaders;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Resident HTTP front end for {@link PdfSplitterService}, so callers can submit documents
+ * continuously without paying JVM start-up and JIT warm-up for each one.
+ *
+ * <p>Endpoints:
+ * <ul>
+ *   <li>{@code POST /split} with a {@code multipart/form-data} body holding a {@code pdf} file
+ *       part and a {@code config} JSON part. Query parameters: {@code format=paths} (default)
+ *       returns the output paths as JSON, {@code format=zip} streams the sections as a ZIP;
+ *       {@code output=<dir>} chooses the output directory in paths mode, relative to the
+ *       output root given at start-up. Without an output root the parameter is refused, so a
+ *       client can never make the server write outside the directories it was given.</li>
+ *   <li>{@code GET /status} returns queue and throughput counters as JSON.</li>
+ *   <li>{@code GET /metrics} returns the split phase histograms and counters in the Prometheus
+ *       text format, once enabled with {@link #exposeMetrics(InMemorySplitMetrics)}.</li>
+ * </ul>
+ *
+ * <p>At most {@code concurrency} splits run at once and at most {@code queueCapacity} more wait
+ * in the queue. Requests beyond that are answered immediately with {@code 429 Too Many Requests}.
+ */
+public class SplitHttpServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SplitHttpServer.class);
+
+    private final PdfSplitterService splitterService;
+    private final JsonConfigurationReader configurationReader = new JsonConfigurationReader();
+    private final ObjectMapper objectMapper = JsonReaders.mapper();
+    private final Path workDirectory;
+    private final Path outputRoot;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final HttpServer httpServer;
+    private final ThreadPoolExecutor workers;
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Creates a server bound to the given address that writes outputs only below its work
+     * directory. Call {@link #start()} to accept requests.
+     *
+     * @param splitterService the service shared by all requests
+     * @param address the address to bind, normally a loopback address
+     * @param concurrency maximum number of splits running at once
+     * @param queueCapacity maximum number of requests waiting for a worker
+     * @param workDirectory directory for uploaded inputs and default outputs
+     * @throws IOException if the address cannot be bound or the work directory created
+     */
+    public SplitHttpServer(PdfSplitterService splitterService, InetSocketAddress address, int concurrency,
+                           int queueCapacity, String workDirectory) throws IOException {
+        this(splitterService, address, concurrency, queueCapacity, workDirectory, null);
+    }
+
+    /**
+     * Creates a server bound to the given address. Call {@link #start()} to accept requests.
+     *
+     * @param splitterService the service shared by all requests
+     * @param address the address to bind, normally a loopback address
+     * @param concurrency maximum number of splits running at once
+     * @param queueCapacity maximum number of requests waiting for a worker
+     * @param workDirectory directory for uploaded inputs and default outputs
+     * @param outputRoot directory under which the {@code output} parameter chooses output
+     *                   directories, or {@code null} to refuse the parameter
+     * @throws IOException if the address cannot be bound or a directory created
+     */
+    public SplitHttpServer(PdfSplitterService splitterService, InetSocketAddress address, int concurrency,
+                           int queueCapacity, String workDirectory, String outputRoot) throws IOException {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Server concurrency must be greater than 0");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Queue capacity cannot be negative");
+        }
+        this.splitterService = splitterService;
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        this.workDirectory = Files.createDirectories(Paths.get(workDirectory));
+        this.outputRoot = outputRoot != null ? Files.createDirectories(Paths.get(outputRoot)).toRealPath() : null;
+
+        BlockingQueue<Runnable> queue = queueCapacity == 0
+            ? new SynchronousQueue<>()
+            : new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS, queue,
+            runnable -> {
+                Thread thread = new Thread(runnable, "pdf-splitter-http-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.httpServer = HttpServer.create(address, 0);
+        this.httpServer.createContext("/split", this::handleSplit);
+        this.httpServer.createContext("/status", this::handleStatus);
+    }
+
+    /**
+     * Serves the given metrics on {@code GET /metrics}. They should be the metrics configured in
+     * the options of the splitter service. Call before {@link #start()}.
+     *
+     * @param metrics the metrics to serve
+     */
+    public void exposeMetrics(InMemorySplitMetrics metrics) {
+        httpServer.createContext("/metrics", exchange -> {
+            byte[] bytes = metrics.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+    }
+
+    public void start() {
+        httpServer.start();
+        logger.info("Split server listening on {} (concurrency {}, queue {})",
+                   httpServer.getAddress(), concurrency, queueCapacity);
+    }
+
+    /**
+     * Stops accepting requests and waits up to the given time for running splits to finish.
+     *
+     * @param timeoutSeconds maximum time to wait
+     */
+    public void stop(int timeoutSeconds) {
+        httpServer.stop(0);
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+        logger.info("Split server stopped");
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    private void handleSplit(HttpExchange exchange) throws IOException {
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "Use POST");
+            return;
+        }
+        try {
+            workers.execute(() -> processSplit(exchange));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendError(exchange, 429, "Split queue is full");
+        }
+    }
+
+    private void handleStatus(HttpExchange exchange) throws IOException {
+        ObjectNode status = objectMapper.createObjectNode();
+        status.put("concurrency", concurrency);
+        status.put("queueCapacity", queueCapacity);
+        status.put("active", workers.getActiveCount());
+        status.put("queued", workers.getQueue().size());
+        status.put("completed", completed.get());
+        status.put("failed", failed.get());
+        status.put("rejected", rejected.get());
+        sendJson(exchange, 200, status);
+    }
+
+    /**
+     * Runs one split request on a worker thread and always completes the exchange.
+     */
+    private void processSplit(HttpExchange exchange) {
+        Path requestDirectory = null;
+        boolean zip = false;
+        try {
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            zip = "zip".equalsIgnoreCase(query.get("format"));
+            String boundary = MultipartStream.boundaryOf(exchange.getRequestHeaders().getFirst("Content-Type"));
+            if (boundary == null) {
+                sendError(exchange, 415, "Expected multipart/form-data with 'pdf' and 'config' parts");
+                return;
+            }
+
+            requestDirectory = Files.createTempDirectory(workDirectory, "split-");
+            Path inputPdf = requestDirectory.resolve("input.pdf");
+            SplitConfiguration config = null;
+            boolean pdfReceived = false;
+
+            MultipartStream parts = new MultipartStream(exchange.getRequestBody(), boundary);
+            while (parts.nextPart()) {
+                if ("config".equals(parts.getFieldName())) {
+                    config = configurationReader.readConfiguration(parts.getPartStream());
+                } else if ("pdf".equals(parts.getFieldName())) {
+                    Files.copy(parts.getPartStream(), inputPdf);
+                    pdfReceived = true;
+                }
+            }
+            if (config == null || !pdfReceived) {
+                sendError(exchange, 400, "Both 'pdf' and 'config' parts are required");
+                return;
+            }
+
+            String outputDirectory = !zip && query.containsKey("output")
+                ? resolveOutput(query.get("output"))
+                : requestDirectory.resolve("output").toString();
+            List<String> outputFiles = splitterService.splitPdfWithConfiguration(
+                inputPdf.toString(), config, outputDirectory);
+            Files.delete(inputPdf);
+
+            if (zip) {
+                sendZip(exchange, outputDirectory, outputFiles);
+            } else {
+                ObjectNode body = objectMapper.createObjectNode();
+                outputFiles.forEach(body.putArray("files")::add);
+                sendJson(exchange, 200, body);
+            }
+            completed.incrementAndGet();
+
+        } catch (InvalidConfigurationException e) {
+            failed.incrementAndGet();
+            sendErrorQuietly(exchange, 400, e.getMessage());
+        } catch (PdfSplitterException e) {
+            failed.incrementAndGet();
+            logger.warn("Split request failed: {}", e.getMessage());
+            sendErrorQuietly(exchange, 422, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            logger.error("Split request failed: {}", e.getMessage(), e);
+            sendErrorQuietly(exchange, 500, e.getMessage());
+        } finally {
+            exchange.close();
+            if (requestDirectory != null) {
+                cleanUp(requestDirectory, zip);
+            }
+        }
+    }
+
+    /**
+     * Resolves the {@code output} parameter against the output root, creating the directory.
+     *
+     * @throws InvalidConfigurationException if there is no output root or the directory would
+     *                                       lie outside it, also through a symbolic link
+     */
+    private String resolveOutput(String output) throws IOException, InvalidConfigurationException {
+        if (outputRoot == null) {
+            throw new InvalidConfigurationException("The 'output' parameter is disabled; start the server with --output-root");
+        }
+        Path relative;
+        try {
+            relative = Paths.get(output);
+        } catch (InvalidPathException e) {
+            throw new InvalidConfigurationException("Invalid output directory: " + output);
+        }
+        Path resolved = outputRoot.resolve(relative).normalize();
+        if (relative.isAbsolute() || !resolved.startsWith(outputRoot)) {
+            throw new InvalidConfigurationException("Output directory must be relative to the output root: " + output);
+        }
+        // Check the part that already exists before creating anything below it
+        Path existing = resolved;
+        while (!Files.exists(existing)) {
+            existing = existing.getParent();
+        }
+        if (!existing.toRealPath().startsWith(outputRoot)) {
+            throw new InvalidConfigurationException("Output directory leads outside the output root: " + output);
+        }
+        return Files.createDirectories(resolved).toString();
+    }
+
+    private void sendZip(HttpExchange exchange, String outputDirectory, List<String> outputFiles) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/zip");
+        exchange.sendResponseHeaders(200, 0);
+        Path root = Paths.get(outputDirectory);
+        try (ZipOutputStream zipStream = new ZipOutputStream(exchange.getResponseBody())) {
+            for (String outputFile : outputFiles) {
+                // Keep shard directories, since names are only unique within a shard
+                String entryName = root.relativize(Paths.get(outputFile)).toString().replace(File.separatorChar, '/');
+                zipStream.putNextEntry(new ZipEntry(entryName));
+                Files.copy(Paths.get(outputFile), zipStream);
+                zipStream.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Removes the uploaded input. ZIP responses also remove the generated sections; in paths
+     * mode they belong to the caller.
+     */
+    private void cleanUp(Path requestDirectory, boolean includeOutputs) {
+        try {
+            if (includeOutputs) {
+                try (Stream<Path> paths = Files.walk(requestDirectory)) {
+                    paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+                }
+            } else {
+                Files.deleteIfExists(requestDirectory.resolve("input.pdf"));
+                try (Stream<Path> remaining = Files.list(requestDirectory)) {
+                    if (!remaining.findAny().isPresent()) {
+                        Files.delete(requestDirectory);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to clean up {}: {}", requestDirectory, e.getMessage());
+        }
+    }
+
+    private Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                           URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private void sendJson(HttpExchange exchange, int status, ObjectNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("error", message);
+        sendJson(exchange, status, body);
+    }
+
+    private void sendErrorQuietly(HttpExchange exchange, int status, String message) {
+        try {
+            sendError(exchange, status, message);
+        } catch (IOException e) {
+            // Headers were already sent (e.g. a failure mid-ZIP) or the client went away
+            logger.debug("Could not send error response: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package chongwm.utils.pdf.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executor behind {@code PdfSplitterService#splitPdfAsync}.
+ *
+ * <p>On Java 21 and later every split gets its own virtual thread, so a blocked split costs a
+ * few hundred bytes of stack instead of a platform thread. The factory method is looked up
+ * reflectively, which keeps the project compiling for Java 11 without a second source tree.
+ * On older runtimes a bounded pool of daemon platform threads is used instead; idle threads
+ * time out, so an unused service holds no threads.
+ */
+final class AsyncExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncExecutors.class);
+    private static final MethodHandle VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+    private AsyncExecutors() {
+    }
+
+    /**
+     * Tells whether an executor from {@link #create} runs its tasks on virtual threads. The
+     * factory method also exists on Java 19 and 20, where it fails unless preview features are
+     * enabled, so only the executor actually built can answer this.
+     *
+     * @param executor an executor returned by {@link #create}
+     * @return true unless the executor is the platform thread pool
+     */
+    static boolean usesVirtualThreads(ExecutorService executor) {
+        return !(executor instanceof ThreadPoolExecutor);
+    }
+
+    /**
+     * Creates an executor with a virtual thread per task when the runtime supports it, otherwise
+     * a pool of at most {@code fallbackThreads} platform threads with an unbounded queue.
+     *
+     * @param fallbackThreads the pool size on runtimes without virtual threads
+     * @return the executor
+     */
+    static ExecutorService create(int fallbackThreads) {
+        if (VIRTUAL_THREAD_EXECUTOR != null) {
+            try {
+                return (ExecutorService) VIRTUAL_THREAD_EXECUTOR.invokeExact();
+            } catch (Throwable e) {
+                logger.warn("Virtual threads unavailable, using a platform thread pool: {}", e.toString());
+            }
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(fallbackThreads, fallbackThreads, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "pdf-splitter-async-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static MethodHandle findVirtualThreadExecutor() {
+        try {
+            return MethodHandles.publicLookup().findStatic(java.util.concurrent.Executors.class,
+                "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
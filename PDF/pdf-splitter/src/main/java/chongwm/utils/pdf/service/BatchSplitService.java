@@ -0,0 +1,111 @@
+package chongwm.utils.pdf.service;
+
+import chongwm.utils.pdf.exception.PdfSplitterException;
+import chongwm.utils.pdf.model.BatchItem;
+import chongwm.utils.pdf.model.BatchItemResult;
+import chongwm.utils.pdf.model.BatchSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Service for running many splits in one JVM with a bounded worker pool.
+ *
+ * <p>All items share the same {@link PdfSplitterService}, so JIT-compiled code and PDFBox
+ * caches stay warm across the whole run.
+ */
+public class BatchSplitService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchSplitService.class);
+
+    private final PdfSplitterService splitterService;
+    private final int concurrency;
+
+    public BatchSplitService(PdfSplitterService splitterService, int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Batch concurrency must be greater than 0");
+        }
+        this.splitterService = splitterService;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Processes every item of a batch. A failing item is reported and does not stop the run.
+     *
+     * @param items the items to process
+     * @param statusListener receives each result as soon as its item completes; called from
+     *                       worker threads, one call at a time
+     * @return summary of the run, with results in manifest order
+     */
+    public BatchSummary run(List<BatchItem> items, Consumer<BatchItemResult> statusListener) {
+        logger.info("Starting batch of {} items with {} workers", items.size(), concurrency);
+        long startNanos = System.nanoTime();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "pdf-splitter-batch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<BatchItemResult> results = new ArrayList<>(items.size());
+        try {
+            List<Future<BatchItemResult>> futures = new ArrayList<>(items.size());
+            for (BatchItem item : items) {
+                futures.add(executor.submit(() -> {
+                    BatchItemResult result = process(item);
+                    synchronized (statusListener) {
+                        statusListener.accept(result);
+                    }
+                    return result;
+                }));
+            }
+
+            for (Future<BatchItemResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Batch interrupted after {} of {} items", results.size(), items.size());
+        } catch (ExecutionException e) {
+            // process() never throws, so this only happens on errors such as OutOfMemoryError
+            throw new IllegalStateException("Batch worker failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        BatchSummary summary = new BatchSummary(results, (System.nanoTime() - startNanos) / 1_000_000);
+        logger.info("Batch completed: {}", summary);
+        return summary;
+    }
+
+    /**
+     * Splits a single batch item, converting any failure into a failed result.
+     *
+     * @param item the item to process
+     * @return the outcome of the item
+     */
+    private BatchItemResult process(BatchItem item) {
+        long startNanos = System.nanoTime();
+        try {
+            List<String> outputFiles = splitterService.splitPdf(
+                item.getInputPdfPath(), item.getConfigurationPath(), item.getOutputDirectory());
+            return BatchItemResult.success(item, outputFiles, elapsedMillis(startNanos));
+        } catch (PdfSplitterException | RuntimeException e) {
+            logger.error("Batch item on line {} failed: {}", item.getLineNumber(), e.getMessage(), e);
+            return BatchItemResult.failure(item, e.getMessage(), elapsedMillis(startNanos));
+        }
+    }
+
+    private long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
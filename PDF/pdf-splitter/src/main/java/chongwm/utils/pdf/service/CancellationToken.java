@@ -0,0 +1,40 @@
+package chongwm.utils.pdf.service;
+
+import chongwm.utils.pdf.exception.SplitCancelledException;
+
+/**
+ * Cooperative cancellation flag for a running split. Another thread, typically an orchestrator
+ * enforcing a timeout, calls {@link #cancel()}; the split checks the token before every section
+ * and every page, stops with a {@link SplitCancelledException} and deletes the files it had
+ * written.
+ *
+ * <p>A token is cheap and thread-safe. Once cancelled it stays cancelled, so use a new token
+ * for each split.
+ */
+public class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    /**
+     * Requests cancellation. The split stops at its next check, at the latest after the page
+     * currently being copied or the section currently being saved.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Throws if cancellation has been requested.
+     *
+     * @throws SplitCancelledException if the token is cancelled
+     */
+    public void throwIfCancelled() throws SplitCancelledException {
+        if (cancelled) {
+            throw new SplitCancelledException("Split was cancelled");
+        }
+    }
+}
@@ -1,15 +1,47 @@
 package chongwm.utils.pdf.service;
 
+import chongwm.utils.pdf.model.OutputLayout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
 
 /**
  * Service for generating safe file names with duplicate handling.
+ * 
+ * <p>The first time a name is requested for an output directory, the directory is listed once
+ * and the names found are remembered together with every name handed out since. Later
+ * requests never touch the disk: each base name keeps its next free index, so allocation is
+ * a lookup and a set insertion even when thousands of files share the same base name. One
+ * instance can therefore be shared by any number of concurrent splits. Files created in the
+ * directory by other processes after the listing are not seen; call {@link #reset()} to take
+ * a fresh listing.
+ * 
+ * <p>Names are remembered per output root: the root and every subdirectory a layout assigns
+ * below it share one index, so a {@link OutputLayout#HASH} split touching thousands of shards
+ * still lists each of them only once. Only the {@value #MAX_OUTPUT_ROOTS} most recently used
+ * roots are remembered, so a long-running server that splits into a new directory per request
+ * does not accumulate listings. A root that was forgotten is listed again, shard by shard, on
+ * its next use; a name allocated before that but not yet written may then be handed out twice,
+ * which is why the splitter creates its files exclusively and asks for another name when one
+ * is taken.
  */
 public class FileNamingService {
     
@@ -19,7 +51,17 @@ public class FileNamingService {
     private static final Pattern INVALID_CHARS = Pattern.compile("[<>:\"/\\\\|?*\\x00-\\x1F]");
     private static final String REPLACEMENT_CHAR = "_";
     
-    private final Map<String, Integer> fileNameCounts = new HashMap<>();
+    static final int MAX_OUTPUT_ROOTS = 256;
+    
+    private final Map<String, OutputRoot> roots = 
+        new LinkedHashMap<String, OutputRoot>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OutputRoot> eldest) {
+                return size() > MAX_OUTPUT_ROOTS;
+            }
+        };
+    
+    private final AtomicInteger listings = new AtomicInteger();
 
     /**
      * Generates a safe, unique filename for the given category and confidence.
@@ -30,16 +72,105 @@ public class FileNamingService {
      * @return a safe, unique filename
      */
     public String generateUniqueFileName(String category, int confidence, String outputDirectory) {
-        String sanitizedCategory = sanitizeFileName(category);
-        String baseFileName = String.format("%s_%d.pdf", sanitizedCategory, confidence);
+        return generateUniqueFileName(category, confidence, outputDirectory, "");
+    }
+
+    /**
+     * Generates a safe filename for the given category and confidence that is unique within a
+     * subdirectory of the output directory, such as a shard returned by
+     * {@link #generateUniqueFilePath}.
+     * 
+     * @param category the document category
+     * @param confidence the confidence level
+     * @param outputDirectory the root output directory
+     * @param subdirectory the subdirectory relative to the root, using {@code /} between
+     *                     directories, or empty for the root itself
+     * @return a safe filename, unique within the subdirectory
+     */
+    public String generateUniqueFileName(String category, int confidence, String outputDirectory,
+                                         String subdirectory) {
+        String baseFileName = buildBaseFileName(category, confidence);
         
-        String uniqueFileName = ensureUniqueFileName(baseFileName, outputDirectory);
+        String uniqueFileName = ensureUniqueFileName(baseFileName, outputDirectory, subdirectory);
         
         logger.debug("Generated filename: {} for category: {}, confidence: {}", 
                     uniqueFileName, category, confidence);
         return uniqueFileName;
     }
 
+    /**
+     * Generates a safe, unique file path relative to the output directory, placed in the
+     * subdirectory the layout assigns to the section. Uniqueness is only checked within that
+     * subdirectory, so each shard is listed once, on first use, and never the whole tree.
+     * 
+     * @param category the document category
+     * @param confidence the confidence level
+     * @param outputDirectory the root output directory
+     * @param layout how files are spread over subdirectories
+     * @param shardKey identifies the section for {@link OutputLayout#HASH}, for example the
+     *                 input name and page range; sections with equal keys share a shard
+     * @param date the day of the split, for {@link OutputLayout#DATE_CATEGORY}
+     * @return the relative path, using {@code /} between directories
+     */
+    public String generateUniqueFilePath(String category, int confidence, String outputDirectory,
+                                         OutputLayout layout, String shardKey, LocalDate date) {
+        String shard = shardDirectory(category, layout, shardKey, date);
+        if (shard.isEmpty()) {
+            return generateUniqueFileName(category, confidence, outputDirectory);
+        }
+        return shard + "/" + generateUniqueFileName(category, confidence, outputDirectory, shard);
+    }
+
+    /**
+     * Returns the subdirectory a layout assigns to a section, empty for {@link OutputLayout#FLAT}.
+     */
+    private String shardDirectory(String category, OutputLayout layout, String shardKey, LocalDate date) {
+        switch (layout) {
+            case HASH:
+                CRC32 crc = new CRC32();
+                crc.update(shardKey.getBytes(StandardCharsets.UTF_8));
+                long hash = crc.getValue();
+                return String.format("%02x/%02x", (hash >>> 8) & 0xff, hash & 0xff);
+            case DATE_CATEGORY:
+                return String.format("%04d/%02d/%02d/%s", date.getYear(), date.getMonthValue(), 
+                                     date.getDayOfMonth(), sanitizeFileName(category));
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * Generates a safe name for the given category and confidence that is unique within a
+     * caller-owned namespace, such as the entries of one archive. The file system is not
+     * consulted; the chosen name is added to {@code usedNames}.
+     * 
+     * @param category the document category
+     * @param confidence the confidence level
+     * @param usedNames names already taken in the namespace
+     * @return a safe, unique name
+     */
+    public String generateUniqueEntryName(String category, int confidence, Set<String> usedNames) {
+        String baseFileName = buildBaseFileName(category, confidence);
+        if (usedNames.add(baseFileName)) {
+            return baseFileName;
+        }
+        
+        String baseName = baseFileName.substring(0, baseFileName.lastIndexOf('.'));
+        String extension = baseFileName.substring(baseFileName.lastIndexOf('.'));
+        int count = 1;
+        String entryName;
+        do {
+            entryName = String.format("%s_%d%s", baseName, count, extension);
+            count++;
+        } while (!usedNames.add(entryName));
+        
+        return entryName;
+    }
+
+    private String buildBaseFileName(String category, int confidence) {
+        return String.format("%s_%d.pdf", sanitizeFileName(category), confidence);
+    }
+
     /**
      * Sanitizes a filename by removing or replacing invalid characters.
      * 
@@ -96,51 +227,151 @@ public class FileNamingService {
     }
 
     /**
-     * Ensures the filename is unique in the target directory by adding an index if necessary.
+     * Ensures the filename is unique in a subdirectory of the output root by adding an index
+     * if necessary.
      * 
      * @param baseFileName the base filename
-     * @param outputDirectory the target directory
+     * @param outputDirectory the root output directory
+     * @param subdirectory the subdirectory relative to the root, empty for the root itself
      * @return unique filename
      */
-    private String ensureUniqueFileName(String baseFileName, String outputDirectory) {
-        String key = outputDirectory + File.separator + baseFileName;
-        
-        if (!fileExists(outputDirectory, baseFileName) && !fileNameCounts.containsKey(key)) {
-            fileNameCounts.put(key, 1);
-            return baseFileName;
+    private String ensureUniqueFileName(String baseFileName, String outputDirectory, String subdirectory) {
+        return outputRoot(outputDirectory).names(subdirectory, listings).allocate(baseFileName);
+    }
+
+    private OutputRoot outputRoot(String outputDirectory) {
+        String key = Paths.get(outputDirectory).toAbsolutePath().normalize().toString();
+        synchronized (roots) {
+            return roots.computeIfAbsent(key, OutputRoot::new);
         }
-        
-        int count = fileNameCounts.getOrDefault(key, 1);
-        String fileName;
-        String baseName = baseFileName.substring(0, baseFileName.lastIndexOf('.'));
-        String extension = baseFileName.substring(baseFileName.lastIndexOf('.'));
-        
-        do {
-            fileName = String.format("%s_%d%s", baseName, count, extension);
-            count++;
-        } while (fileExists(outputDirectory, fileName) || 
-                fileNameCounts.containsKey(outputDirectory + File.separator + fileName));
-        
-        fileNameCounts.put(key, count);
-        return fileName;
     }
 
     /**
-     * Checks if a file exists in the given directory.
+     * Returns a name allocated by {@link #generateUniqueFileName} or
+     * {@link #generateUniqueFilePath} whose file was removed again, for example after a
+     * cancelled split. A released base name is handed out again the next time it is
+     * requested; a released indexed name is not reused.
      * 
-     * @param directory the directory to check
-     * @param fileName the filename to check
-     * @return true if the file exists
+     * @param filePath the file path relative to the output directory, using {@code /} between
+     *                 directories, as returned by {@link #generateUniqueFilePath}
+     * @param outputDirectory the root output directory it was allocated in
      */
-    private boolean fileExists(String directory, String fileName) {
-        File file = new File(directory, fileName);
-        return file.exists();
+    public void release(String filePath, String outputDirectory) {
+        String key = Paths.get(outputDirectory).toAbsolutePath().normalize().toString();
+        OutputRoot root;
+        synchronized (roots) {
+            root = roots.get(key);
+        }
+        if (root == null) {
+            return;
+        }
+        int slash = filePath.lastIndexOf('/');
+        DirectoryNames names = root.shards.get(slash < 0 ? "" : filePath.substring(0, slash));
+        if (names != null) {
+            names.taken.remove(filePath.substring(slash + 1));
+        }
     }
 
     /**
-     * Resets the internal file name counter. Useful for testing or when processing new batches.
+     * Forgets all directory listings and allocated names. Useful for testing or when processing
+     * new batches.
      */
     public void reset() {
-        fileNameCounts.clear();
+        synchronized (roots) {
+            roots.clear();
+        }
+    }
+
+    /**
+     * Returns the number of output roots whose names are currently remembered.
+     */
+    int getRememberedOutputRoots() {
+        synchronized (roots) {
+            return roots.size();
+        }
+    }
+
+    /**
+     * Returns the number of directory listings taken since this service was created.
+     */
+    int getListingCount() {
+        return listings.get();
+    }
+
+    /**
+     * The names taken in an output root and the subdirectories below it, each listed on first
+     * use. Shards are never evicted on their own, so a layout with many of them costs one
+     * listing per shard for as long as the root is remembered.
+     */
+    private static final class OutputRoot {
+
+        private final String directory;
+        private final ConcurrentMap<String, DirectoryNames> shards = new ConcurrentHashMap<>();
+
+        OutputRoot(String directory) {
+            this.directory = directory;
+        }
+
+        DirectoryNames names(String subdirectory, AtomicInteger listings) {
+            DirectoryNames names = shards.get(subdirectory);
+            if (names == null) {
+                // List outside any lock, so a large directory does not hold up the others
+                String path = subdirectory.isEmpty() ? directory 
+                    : directory + File.separator + subdirectory.replace('/', File.separatorChar);
+                DirectoryNames listed = DirectoryNames.snapshot(path);
+                listings.incrementAndGet();
+                names = shards.putIfAbsent(subdirectory, listed);
+                if (names == null) {
+                    names = listed;
+                }
+            }
+            return names;
+        }
+    }
+
+    /**
+     * Names taken in one output directory: those present when it was listed plus those
+     * allocated since.
+     */
+    private static final class DirectoryNames {
+
+        private final Set<String> taken = ConcurrentHashMap.newKeySet();
+        private final ConcurrentMap<String, AtomicInteger> nextIndex = new ConcurrentHashMap<>();
+
+        static DirectoryNames snapshot(String directory) {
+            DirectoryNames names = new DirectoryNames();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(Paths.get(directory))) {
+                for (Path entry : entries) {
+                    names.taken.add(entry.getFileName().toString());
+                }
+            } catch (NoSuchFileException e) {
+                // Directory not created yet, so nothing is taken
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to list output directory: " + directory, e);
+            }
+            logger.debug("Listed {} existing names in {}", names.taken.size(), directory);
+            return names;
+        }
+
+        /**
+         * Returns the base name if free, otherwise the lowest unused {@code base_N} at or after
+         * the index this base name reached last time. Indices taken by files that were already
+         * on disk are skipped once and never probed again, so allocation is amortized O(1).
+         */
+        String allocate(String baseFileName) {
+            if (taken.add(baseFileName)) {
+                return baseFileName;
+            }
+            
+            String baseName = baseFileName.substring(0, baseFileName.lastIndexOf('.'));
+            String extension = baseFileName.substring(baseFileName.lastIndexOf('.'));
+            AtomicInteger counter = nextIndex.computeIfAbsent(baseFileName, name -> new AtomicInteger(1));
+            String fileName;
+            do {
+                fileName = String.format("%s_%d%s", baseName, counter.getAndIncrement(), extension);
+            } while (!taken.add(fileName));
+            
+            return fileName;
+        }
     }
 }
\ No newline at end of file
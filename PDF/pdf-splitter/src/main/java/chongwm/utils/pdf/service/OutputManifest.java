@@ -0,0 +1,82 @@
+package chongwm.utils.pdf.service;
+
+import chongwm.utils.pdf.model.DocumentSection;
+import chongwm.utils.pdf.model.SectionReport;
+import chongwm.utils.pdf.util.JsonReaders;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Writes {@value #MANIFEST_NAME}, a JSON-lines manifest of the files in an output directory.
+ * Each line describes one section file:
+ *
+ * <pre>
+ * {"path":"invoice_95.pdf","pages":3,"bytes":18211,"sha256":"9f2c...","category":"invoice","confidence":95}
+ * </pre>
+ *
+ * <p>{@code path} is relative to the output directory with {@code /} separators, and
+ * {@code sha256} is the digest computed while the section was saved. Every split appends its
+ * lines in a single write, so the lines of concurrent splits into the same directory never
+ * interleave.
+ */
+final class OutputManifest {
+
+    static final String MANIFEST_NAME = "manifest.jsonl";
+
+    private static final ObjectWriter WRITER = JsonReaders.mapper().writer();
+    private static final Object LOCK = new Object();
+
+    private OutputManifest() {
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Appends a line for every section to the manifest in the output directory, creating it
+     * if necessary.
+     *
+     * @param outputDirectory the root output directory
+     * @param reports the reports of the written sections, with their digests
+     * @throws IOException if the manifest cannot be written
+     */
+    static void append(String outputDirectory, List<SectionReport> reports) throws IOException {
+        Path root = Paths.get(outputDirectory);
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (SectionReport report : reports) {
+            DocumentSection section = report.getSection();
+            String path = root.relativize(Paths.get(report.getOutputName())).toString()
+                              .replace(File.separatorChar, '/');
+            ObjectNode line = JsonReaders.mapper().createObjectNode();
+            line.put("path", path)
+                .put("pages", section.getEndPage() - section.getStartPage() + 1)
+                .put("bytes", report.getBytesWritten())
+                .put("sha256", report.getSha256())
+                .put("category", section.getCategory())
+                .put("confidence", section.getConfidence());
+            WRITER.writeValue(lines, line);
+            lines.write('\n');
+        }
+
+        synchronized (LOCK) {
+            Files.write(root.resolve(MANIFEST_NAME), lines.toByteArray(),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package chongwm.utils.pdf.service;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.io.RandomAccessReadMemoryMappedFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Where the input PDF of a split comes from. PDFBox needs random access to parse a document,
+ * and every worker of a parallel split opens its own reader, so a source must be readable any
+ * number of times.
+ *
+ * <ul>
+ *   <li>{@link #file(File)} reads through a buffered file handle, as before.</li>
+ *   <li>{@link #mappedFile(File)} maps the file into memory, which avoids copying pages through
+ *       an I/O buffer when the same large input is read by several workers.</li>
+ *   <li>{@link #spool(InputStream, long, File)} reads a stream, such as standard input or a
+ *       network upload, once: into memory up to a limit, and into a scratch file beyond it.</li>
+ * </ul>
+ *
+ * <p>Close a source once every split using it has finished; this deletes its scratch file.
+ */
+public abstract class PdfSource implements Closeable {
+
+    /** Default memory a spooled stream may use before it goes to a scratch file. */
+    public static final long DEFAULT_SPOOL_MEMORY_BYTES = 64L * 1024 * 1024;
+    
+    /** Largest file PDFBox can memory-map, as it maps the whole file into one buffer. */
+    public static final long MAX_MAPPED_BYTES = Integer.MAX_VALUE;
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfSource.class);
+    private static final int SPOOL_BUFFER_SIZE = 64 * 1024;
+
+    private final String description;
+
+    PdfSource(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Reads a PDF file through a buffered file handle.
+     *
+     * @param file the PDF file
+     * @return the source
+     */
+    public static PdfSource file(File file) {
+        return new FileSource(file, false);
+    }
+
+    /**
+     * Reads a PDF file through a memory mapping. A file larger than {@link #MAX_MAPPED_BYTES}
+     * cannot be mapped and is read through a buffered file handle instead.
+     *
+     * @param file the PDF file
+     * @return the source
+     */
+    public static PdfSource mappedFile(File file) {
+        if (file.length() > MAX_MAPPED_BYTES) {
+            logger.warn("{} is too large to be memory-mapped ({} bytes), reading it through a file buffer", 
+                       file, file.length());
+            return new FileSource(file, false);
+        }
+        return new FileSource(file, true);
+    }
+
+    /**
+     * Reads a stream to its end, in memory if it fits within {@code memoryLimitBytes} and
+     * otherwise spilling it, with what was buffered so far, to a scratch file. The stream is not
+     * closed. While the in-memory buffer grows, its old and new array exist side by side, so at
+     * most half the limit is buffered before spilling.
+     *
+     * @param in the stream holding the PDF
+     * @param memoryLimitBytes the most memory to use for buffering
+     * @param scratchDirectory the directory for the scratch file, or {@code null} for the
+     *                         system temporary directory
+     * @return the source
+     * @throws IOException if the stream cannot be read or the scratch file written
+     */
+    public static PdfSource spool(InputStream in, long memoryLimitBytes, File scratchDirectory) throws IOException {
+        // A Java array cannot hold more than about 2 GB
+        int spillThreshold = (int) Math.min(memoryLimitBytes / 2, Integer.MAX_VALUE - 8);
+        byte[] buffer = new byte[SPOOL_BUFFER_SIZE];
+        SpoolBuffer memory = new SpoolBuffer(spillThreshold);
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (memory.size() + (long) read > spillThreshold) {
+                return spoolToFile(memory, buffer, read, in, scratchDirectory);
+            }
+            memory.write(buffer, 0, read);
+        }
+        logger.debug("Spooled {} bytes of input into memory", memory.size());
+        return new MemorySource(memory.bytes(), memory.size());
+    }
+
+    private static PdfSource spoolToFile(SpoolBuffer memory, byte[] buffer, int read, InputStream in,
+                                         File scratchDirectory) throws IOException {
+        Path scratch = scratchDirectory != null
+            ? Files.createTempFile(scratchDirectory.toPath(), "pdf-splitter-input", ".pdf")
+            : Files.createTempFile("pdf-splitter-input", ".pdf");
+        try (OutputStream out = Files.newOutputStream(scratch)) {
+            memory.writeTo(out);
+            out.write(buffer, 0, read);
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(scratch);
+            throw e;
+        }
+        logger.debug("Spooled {} bytes of input to scratch file {}", Files.size(scratch), scratch);
+        return new ScratchFileSource(scratch.toFile());
+    }
+
+    /**
+     * Opens a new random-access reader positioned at the start of the PDF. Loading a document
+     * from it transfers ownership to the document.
+     *
+     * @return the reader
+     * @throws IOException if the source cannot be opened
+     */
+    abstract RandomAccessRead openRead() throws IOException;
+
+    /**
+     * Opens a sequential stream over the PDF bytes.
+     *
+     * @return the stream
+     * @throws IOException if the source cannot be opened
+     */
+    public abstract InputStream openStream() throws IOException;
+
+    /**
+     * Returns the size of the PDF.
+     *
+     * @return the size in bytes
+     */
+    public abstract long length();
+
+    /**
+     * Returns a key that changes whenever the content may have changed, for caching parsed
+     * documents across splits, or {@code null} if the source cannot be identified that way.
+     *
+     * @return the cache key, or {@code null}
+     */
+    String cacheKey() {
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Nothing to release by default
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    private static final class FileSource extends PdfSource {
+
+        private final File file;
+        private final boolean mapped;
+
+        FileSource(File file, boolean mapped) {
+            super(file.getPath());
+            this.file = file;
+            this.mapped = mapped;
+        }
+
+        @Override
+        RandomAccessRead openRead() throws IOException {
+            return mapped ? new RandomAccessReadMemoryMappedFile(file) : new RandomAccessReadBufferedFile(file);
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return Files.newInputStream(file.toPath());
+        }
+
+        @Override
+        public long length() {
+            return file.length();
+        }
+
+        @Override
+        String cacheKey() {
+            return file.getAbsolutePath() + '|' + file.length() + '|' + file.lastModified();
+        }
+    }
+
+    private static final class MemorySource extends PdfSource {
+
+        private final byte[] bytes;
+        private final int length;
+
+        MemorySource(byte[] bytes, int length) {
+            super("<stream>");
+            this.bytes = bytes;
+            this.length = length;
+        }
+
+        @Override
+        RandomAccessRead openRead() {
+            // Wraps the shared array without copying it; readers only ever read
+            return new RandomAccessReadBuffer(ByteBuffer.wrap(bytes, 0, length).slice());
+        }
+
+        @Override
+        public InputStream openStream() {
+            return new ByteArrayInputStream(bytes, 0, length);
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+    }
+
+    private static final class ScratchFileSource extends PdfSource {
+
+        private final File file;
+
+        ScratchFileSource(File file) {
+            super("<stream>");
+            this.file = file;
+        }
+
+        @Override
+        RandomAccessRead openRead() throws IOException {
+            return new RandomAccessReadBufferedFile(file);
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return Files.newInputStream(file.toPath());
+        }
+
+        @Override
+        public long length() {
+            return file.length();
+        }
+
+        @Override
+        public void close() throws IOException {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    /**
+     * Growable buffer whose array can be handed out without the copy
+     * {@link ByteArrayOutputStream#toByteArray()} makes. It doubles like its superclass, but
+     * never beyond its capacity limit, so a buffer filled up to the limit holds one array of at
+     * most that size.
+     */
+    private static final class SpoolBuffer extends ByteArrayOutputStream {
+
+        private final int capacityLimit;
+
+        SpoolBuffer(int capacityLimit) {
+            super(Math.min(SPOOL_BUFFER_SIZE, capacityLimit));
+            this.capacityLimit = capacityLimit;
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            int needed = count + len;
+            if (needed > buf.length) {
+                buf = Arrays.copyOf(buf, (int) Math.min(capacityLimit, Math.max(needed, 2L * buf.length)));
+            }
+            System.arraycopy(b, off, buf, count, len);
+            count = needed;
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -1,35 +1,144 @@
 package chongwm.utils.pdf.service;
 
+import chongwm.utils.pdf.exception.InvalidConfigurationException;
 import chongwm.utils.pdf.exception.PdfSplitterException;
+import chongwm.utils.pdf.exception.SplitCancelledException;
+import chongwm.utils.pdf.metrics.SplitCounter;
+import chongwm.utils.pdf.metrics.SplitMetrics;
+import chongwm.utils.pdf.metrics.SplitPhase;
+import chongwm.utils.pdf.model.ArchiveFormat;
 import chongwm.utils.pdf.model.DocumentSection;
+import chongwm.utils.pdf.model.FanOutResult;
+import chongwm.utils.pdf.model.OutputLayout;
+import chongwm.utils.pdf.model.PreflightReport;
+import chongwm.utils.pdf.model.SaveProfile;
+import chongwm.utils.pdf.model.SectionRangeIndex;
+import chongwm.utils.pdf.model.SectionReport;
 import chongwm.utils.pdf.model.SplitConfiguration;
-import org.apache.pdfbox.multipdf.Splitter;
+import chongwm.utils.pdf.model.SplitOptions;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import chongwm.utils.pdf.util.ArchiveWriter;
+import chongwm.utils.pdf.util.JsonConfigurationReader;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for splitting PDF documents based on configuration.
  */
-public class PdfSplitterService {
+public class PdfSplitterService implements AutoCloseable {
     
     private static final Logger logger = LoggerFactory.getLogger(PdfSplitterService.class);
     
+    /** Larger object streams give Flate more context to work with in the compact profile. */
+    private static final CompressParameters COMPACT_COMPRESSION = 
+        new CompressParameters(CompressParameters.DEFAULT_OBJECT_STREAM_SIZE * 10);
+    
+    /** Token for the operations that cannot be cancelled; nothing ever cancels it. */
+    private static final CancellationToken NOT_CANCELLABLE = new CancellationToken();
+    
     private final FileNamingService fileNamingService;
+    private final SplitOptions options;
+    private final SplitMetrics metrics;
+    private final boolean metricsEnabled;
+    private final SplitResultCache resultCache = new SplitResultCache();
+    private final JsonConfigurationReader configurationReader = new JsonConfigurationReader();
+    private final Semaphore asyncPermits;
+    private final SourceDocumentCache documentCache;
+    private ExecutorService asyncExecutor;
+    private boolean closed;
 
-    public PdfSplitterService(FileNamingService fileNamingService) {
+    public PdfSplitterService(FileNamingService fileNamingService, SplitOptions options) {
+        options.validate();
         this.fileNamingService = fileNamingService;
+        this.options = options;
+        this.metrics = options.getMetrics();
+        this.metricsEnabled = metrics.isEnabled();
+        this.asyncPermits = new Semaphore(options.getAsyncConcurrency());
+        this.documentCache = options.getDocumentCacheBytes() > 0 
+            ? new SourceDocumentCache(options.getDocumentCacheBytes(), metrics) 
+            : null;
+    }
+
+    public PdfSplitterService(FileNamingService fileNamingService) {
+        this(fileNamingService, new SplitOptions());
     }
 
     public PdfSplitterService() {
         this(new FileNamingService());
     }
 
+    /**
+     * Closes the source documents kept open by {@link SplitOptions#getDocumentCacheBytes()}.
+     * Documents still used by a running split are closed when it ends. Does nothing when the
+     * cache is disabled.
+     */
+    public void clearDocumentCache() {
+        if (documentCache != null) {
+            documentCache.clear();
+        }
+    }
+
+    /**
+     * Shuts down the threads behind {@link #splitPdfAsync} and closes the cached source
+     * documents. Asynchronous splits already submitted still run to completion, but this
+     * method does not wait for them; splits submitted afterwards fail. A service that was
+     * never used asynchronously holds no threads, so closing it only clears the cache.
+     */
+    @Override
+    public void close() {
+        ExecutorService executor;
+        synchronized (this) {
+            closed = true;
+            executor = asyncExecutor;
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+        clearDocumentCache();
+    }
+
     /**
      * Splits a PDF file according to the provided configuration.
      * 
@@ -60,38 +169,469 @@ public class PdfSplitterService {
     /**
      * Splits a PDF file with a provided configuration object.
      * 
+     * <p>When {@link SplitOptions#getWorkerCount()} is greater than one the sections are
+     * extracted concurrently, each worker reading from its own handle on the source file.
+     * The generated files and the order of the returned list are the same as for a
+     * single-threaded run.
+     * 
+     * <p>When {@link SplitOptions#isMemoryBounded()} is set, PDFBox buffers are capped at the
+     * configured budget and spill to scratch files, and the source is released after each
+     * section so that parsed objects do not accumulate on the heap.
+     * 
+     * <p>When {@link SplitOptions#isReuseResults()} is set and the output directory already
+     * holds intact outputs of the same input bytes and configuration, those paths are returned
+     * without loading the PDF.
+     * 
+     * @param inputPdfPath path to the input PDF file
+     * @param config the split configuration
+     * @param outputDirectory directory where split PDFs will be saved
+     * @return list of generated output file paths
+     * @throws PdfSplitterException if splitting fails
+     */
+    public List<String> splitPdfWithConfiguration(String inputPdfPath, SplitConfiguration config, 
+                                                 String outputDirectory) throws PdfSplitterException {
+        return splitPdfWithConfiguration(inputPdfPath, config, outputDirectory, SplitListener.NONE, NOT_CANCELLABLE);
+    }
+
+    /**
+     * Splits a PDF file with a provided configuration object, reporting progress to a listener
+     * and stopping early when the token is cancelled.
+     * 
+     * <p>The token is checked before every section and every page. On cancellation every file
+     * this split had written, complete or not, is deleted and a {@link SplitCancelledException}
+     * is thrown once all workers have stopped, so the caller can reclaim the thread and heap
+     * straight away. Results reused from a previous split are returned without any listener
+     * events.
+     * 
      * @param inputPdfPath path to the input PDF file
      * @param config the split configuration
      * @param outputDirectory directory where split PDFs will be saved
+     * @param listener receives section start and completion events
+     * @param cancellation token checked while splitting
      * @return list of generated output file paths
+     * @throws SplitCancelledException if the token was cancelled
      * @throws PdfSplitterException if splitting fails
+     * @see #splitPdfWithConfiguration(String, SplitConfiguration, String)
      */
     public List<String> splitPdfWithConfiguration(String inputPdfPath, SplitConfiguration config, 
+                                                 String outputDirectory, SplitListener listener,
+                                                 CancellationToken cancellation) throws PdfSplitterException {
+        return splitPdfWithConfiguration(openInput(inputPdfPath), config, outputDirectory, listener, cancellation);
+    }
+
+    /**
+     * Splits a PDF from any {@link PdfSource}, such as a spooled stream, into files.
+     * 
+     * @param input the input PDF; the caller closes it
+     * @param config the split configuration
+     * @param outputDirectory directory where split PDFs will be saved
+     * @return list of generated output file paths
+     * @throws PdfSplitterException if splitting fails
+     * @see #splitPdfWithConfiguration(PdfSource, SplitConfiguration, String, SplitListener, CancellationToken)
+     */
+    public List<String> splitPdfWithConfiguration(PdfSource input, SplitConfiguration config, 
                                                  String outputDirectory) throws PdfSplitterException {
+        return splitPdfWithConfiguration(input, config, outputDirectory, SplitListener.NONE, NOT_CANCELLABLE);
+    }
+
+    /**
+     * Splits a PDF from any {@link PdfSource} into files, reporting progress to a listener and
+     * stopping early when the token is cancelled.
+     * 
+     * @param input the input PDF; the caller closes it
+     * @param config the split configuration
+     * @param outputDirectory directory where split PDFs will be saved
+     * @param listener receives section start and completion events
+     * @param cancellation token checked while splitting
+     * @return list of generated output file paths
+     * @throws SplitCancelledException if the token was cancelled
+     * @throws PdfSplitterException if splitting fails
+     * @see #splitPdfWithConfiguration(String, SplitConfiguration, String, SplitListener, CancellationToken)
+     */
+    public List<String> splitPdfWithConfiguration(PdfSource input, SplitConfiguration config, 
+                                                 String outputDirectory, SplitListener listener,
+                                                 CancellationToken cancellation) throws PdfSplitterException {
         
-        List<String> outputFiles = new ArrayList<>();
+        cancellation.throwIfCancelled();
+        String cacheKey = null;
+        if (options.isReuseResults()) {
+            try {
+                cacheKey = resultCache.computeKey(input, config, options);
+            } catch (IOException e) {
+                throw new PdfSplitterException("Failed to read PDF file: " + e.getMessage(), e);
+            }
+            List<String> cachedFiles = resultCache.lookup(outputDirectory, cacheKey);
+            if (cachedFiles != null) {
+                logger.info("Input and configuration already split into {}, reusing {} files", 
+                           outputDirectory, cachedFiles.size());
+                return cachedFiles;
+            }
+        }
+        
+        List<SectionReport> reports = split(input, config, fileNamer(input, outputDirectory), 
+                                            fileSinks(outputDirectory), true, listener, cancellation);
+        List<String> outputFiles = new ArrayList<>(reports.size());
+        for (SectionReport report : reports) {
+            outputFiles.add(report.getOutputName());
+        }
+        if (options.isWriteManifest()) {
+            writeManifest(outputDirectory, reports);
+        }
         
-        try (PDDocument document = PDDocument.load(new File(inputPdfPath))) {
-            int totalPages = document.getNumberOfPages();
-            logger.info("Input PDF has {} pages", totalPages);
+        if (cacheKey != null) {
+            resultCache.record(outputDirectory, cacheKey, outputFiles);
+        }
+        return outputFiles;
+    }
+
+    /**
+     * Applies several configurations to one PDF file, each into its own output directory.
+     * 
+     * @param inputPdfPath path to the input PDF file
+     * @param configurations the configuration for each output directory, in the order to apply them
+     * @return one result per configuration, in the same order
+     * @throws PdfSplitterException if the input cannot be loaded
+     * @see #splitPdfWithConfigurations(PdfSource, Map)
+     */
+    public List<FanOutResult> splitPdfWithConfigurations(String inputPdfPath, 
+                                                         Map<String, SplitConfiguration> configurations) 
+            throws PdfSplitterException {
+        return splitPdfWithConfigurations(openInput(inputPdfPath), configurations);
+    }
+
+    /**
+     * Applies several configurations to one PDF, each into its own output directory, loading
+     * and checking the input only once. Calling {@link #splitPdfWithConfiguration(PdfSource, 
+     * SplitConfiguration, String)} for each configuration would parse the input every time.
+     * 
+     * <p>The configurations are applied one after another, every one of them with the
+     * configured number of workers. With {@link SaveProfile#COMPACT} the source is parsed again
+     * for each configuration, because compaction rewrites the streams the sections share with
+     * it. A configuration that does not fit the document, or whose
+     * sections fail to extract, is reported in its result and does not stop the others. With
+     * {@link SplitOptions#isReuseResults()} each output directory is looked up on its own, and
+     * the input is not loaded at all when every configuration is a hit.
+     * 
+     * @param input the input PDF; the caller closes it
+     * @param configurations the configuration for each output directory, in the order to apply them
+     * @return one result per configuration, in the same order
+     * @throws PdfSplitterException if the input cannot be loaded or needs a password
+     */
+    public List<FanOutResult> splitPdfWithConfigurations(PdfSource input, 
+                                                         Map<String, SplitConfiguration> configurations) 
+            throws PdfSplitterException {
+        
+        if (configurations == null || configurations.isEmpty()) {
+            throw new InvalidConfigurationException("At least one configuration is required");
+        }
+        
+        FanOutResult[] results = new FanOutResult[configurations.size()];
+        String[] cacheKeys = new String[configurations.size()];
+        boolean pending = false;
+        int maxSections = 1;
+        int index = 0;
+        for (Map.Entry<String, SplitConfiguration> entry : configurations.entrySet()) {
+            SplitConfiguration config = entry.getValue();
+            if (config == null || config.getDocuments() == null || config.getDocuments().isEmpty()) {
+                results[index++] = FanOutResult.failure(entry.getKey(), "Documents list cannot be null or empty", 0);
+                continue;
+            }
+            if (options.isReuseResults()) {
+                try {
+                    cacheKeys[index] = resultCache.computeKey(input, config, options);
+                } catch (IOException e) {
+                    throw new PdfSplitterException("Failed to read PDF file: " + e.getMessage(), e);
+                }
+                List<String> cachedFiles = resultCache.lookup(entry.getKey(), cacheKeys[index]);
+                if (cachedFiles != null) {
+                    logger.info("Input and configuration already split into {}, reusing {} files", 
+                               entry.getKey(), cachedFiles.size());
+                    results[index] = FanOutResult.success(entry.getKey(), cachedFiles, 0);
+                }
+            }
+            if (results[index] == null) {
+                pending = true;
+                maxSections = Math.max(maxSections, config.getDocuments().size());
+            }
+            index++;
+        }
+        if (!pending) {
+            return Arrays.asList(results);
+        }
+        
+        int workerCount = Math.max(1, Math.min(options.getWorkerCount(), maxSections));
+        StreamCacheCreateFunction streamCache = createStreamCache(workerCount);
+        
+        try (SourceDocument source = new SourceDocument(input, streamCache, metrics, documentCache)) {
+            int totalPages = openForSplit(source);
             
-            // Validate page ranges against actual document
-            validatePageRanges(config, totalPages);
+            index = 0;
+            for (Map.Entry<String, SplitConfiguration> entry : configurations.entrySet()) {
+                if (results[index] == null) {
+                    results[index] = applyConfiguration(source, totalPages, entry.getValue(), entry.getKey(), 
+                                                        cacheKeys[index], workerCount, streamCache);
+                    if (options.getSaveProfile() == SaveProfile.COMPACT) {
+                        // Compaction rewrote streams of the source; the next configuration reads it afresh
+                        source.release();
+                    }
+                }
+                index++;
+            }
+        } catch (IOException e) {
+            throw new PdfSplitterException("Failed to process PDF file: " + e.getMessage(), e);
+        }
+        
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Applies one configuration of a fan-out to the shared source, turning its failure into a
+     * result.
+     */
+    private FanOutResult applyConfiguration(SourceDocument source, int totalPages, SplitConfiguration config,
+                                            String outputDirectory, String cacheKey, int workerCount,
+                                            StreamCacheCreateFunction streamCache) {
+        long startMillis = System.currentTimeMillis();
+        try {
+            List<SectionReport> reports = extract(source, totalPages, config, 
+                fileNamer(source.getInput(), outputDirectory), fileSinks(outputDirectory), 
+                Math.min(workerCount, config.getDocuments().size()), streamCache, 
+                SplitListener.NONE, NOT_CANCELLABLE);
+            List<String> outputFiles = new ArrayList<>(reports.size());
+            for (SectionReport report : reports) {
+                outputFiles.add(report.getOutputName());
+            }
+            if (options.isWriteManifest()) {
+                writeManifest(outputDirectory, reports);
+            }
+            if (cacheKey != null) {
+                resultCache.record(outputDirectory, cacheKey, outputFiles);
+            }
+            return FanOutResult.success(outputDirectory, outputFiles, System.currentTimeMillis() - startMillis);
+        } catch (PdfSplitterException | IOException e) {
+            logger.error("Configuration for {} failed: {}", outputDirectory, e.getMessage());
+            return FanOutResult.failure(outputDirectory, e.getMessage(), System.currentTimeMillis() - startMillis);
+        }
+    }
+
+    /**
+     * Splits a PDF file with a provided configuration object, writing each section to a stream
+     * or channel supplied by the caller instead of a file.
+     * 
+     * @param inputPdfPath path to the input PDF file
+     * @param config the split configuration
+     * @param sinks supplies the destination of each section
+     * @return the section names, in configuration order
+     * @throws PdfSplitterException if splitting fails
+     * @see #splitPdfWithConfiguration(String, SplitConfiguration, SectionSinkFactory, SplitListener, CancellationToken)
+     */
+    public List<String> splitPdfWithConfiguration(String inputPdfPath, SplitConfiguration config,
+                                                 SectionSinkFactory sinks) throws PdfSplitterException {
+        return splitPdfWithConfiguration(inputPdfPath, config, sinks, SplitListener.NONE, NOT_CANCELLABLE);
+    }
+
+    /**
+     * Splits a PDF file with a provided configuration object, writing each section to a stream
+     * or channel supplied by the caller, such as a socket, a pipe or an in-memory buffer. No
+     * intermediate file is written; with {@link SplitOptions#isMemoryBounded()} only PDFBox
+     * scratch data may reach the disk.
+     * 
+     * <p>Section names follow {@link FileNamingService} naming and are unique within the split.
+     * Sections are extracted concurrently when {@link SplitOptions#getWorkerCount()} is greater
+     * than one, in which case the sink factory is called from several threads. On cancellation
+     * {@link SectionSinkFactory#cancelled(List)} is called once all workers have stopped.
+     * Results are never reused from a previous split.
+     * 
+     * @param inputPdfPath path to the input PDF file
+     * @param config the split configuration
+     * @param sinks supplies the destination of each section
+     * @param listener receives section start and completion events
+     * @param cancellation token checked while splitting
+     * @return the section names, in configuration order
+     * @throws SplitCancelledException if the token was cancelled
+     * @throws PdfSplitterException if splitting fails
+     */
+    public List<String> splitPdfWithConfiguration(String inputPdfPath, SplitConfiguration config,
+                                                 SectionSinkFactory sinks, SplitListener listener,
+                                                 CancellationToken cancellation) throws PdfSplitterException {
+        return splitPdfWithConfiguration(openInput(inputPdfPath), config, sinks, listener, cancellation);
+    }
+
+    /**
+     * Splits a PDF from any {@link PdfSource} into caller-supplied streams or channels, so
+     * neither the input nor the sections need to touch the disk.
+     * 
+     * @param input the input PDF; the caller closes it
+     * @param config the split configuration
+     * @param sinks supplies the destination of each section
+     * @param listener receives section start and completion events
+     * @param cancellation token checked while splitting
+     * @return the section names, in configuration order
+     * @throws SplitCancelledException if the token was cancelled
+     * @throws PdfSplitterException if splitting fails
+     * @see #splitPdfWithConfiguration(String, SplitConfiguration, SectionSinkFactory, SplitListener, CancellationToken)
+     */
+    public List<String> splitPdfWithConfiguration(PdfSource input, SplitConfiguration config,
+                                                 SectionSinkFactory sinks, SplitListener listener,
+                                                 CancellationToken cancellation) throws PdfSplitterException {
+        cancellation.throwIfCancelled();
+        List<String> names = new ArrayList<>();
+        for (SectionReport report : split(input, config, entryNames(), sinks, true, 
+                                          listener, cancellation)) {
+            names.add(report.getOutputName());
+        }
+        return names;
+    }
+
+    /**
+     * Splits a PDF file with a provided configuration object without blocking the caller.
+     * 
+     * @param inputPdfPath path to the input PDF file
+     * @param config the split configuration
+     * @param outputDirectory directory where split PDFs will be saved
+     * @return a future completed with the generated output file paths
+     * @see #splitPdfAsync(String, SplitConfiguration, String, SplitListener)
+     */
+    public CompletableFuture<List<String>> splitPdfAsync(String inputPdfPath, SplitConfiguration config,
+                                                         String outputDirectory) {
+        return splitPdfAsync(inputPdfPath, config, outputDirectory, SplitListener.NONE);
+    }
+
+    /**
+     * Splits a PDF file with a provided configuration object without blocking the caller.
+     * 
+     * <p>Splits run on a virtual thread each when the runtime supports them (Java 21 and
+     * later), otherwise on a pool of {@link SplitOptions#getAsyncConcurrency()} platform
+     * threads. Either way at most that many splits load and extract at once; the rest wait
+     * for a permit before opening their input, so any number of pending futures costs little
+     * heap.
+     * 
+     * <p>The future fails with the {@link PdfSplitterException} the blocking call would have
+     * thrown. Cancelling the future cancels the split through its {@link CancellationToken}:
+     * a waiting split never starts and a running one stops and deletes its outputs.
+     * 
+     * @param inputPdfPath path to the input PDF file
+     * @param config the split configuration
+     * @param outputDirectory directory where split PDFs will be saved
+     * @param listener receives section start and completion events
+     * @return a future completed with the generated output file paths
+     * @see #splitPdfWithConfiguration(String, SplitConfiguration, String, SplitListener, CancellationToken)
+     */
+    public CompletableFuture<List<String>> splitPdfAsync(String inputPdfPath, SplitConfiguration config,
+                                                         String outputDirectory, SplitListener listener) {
+        CancellationToken cancellation = new CancellationToken();
+        CompletableFuture<List<String>> future = new CompletableFuture<>();
+        future.whenComplete((files, failure) -> {
+            if (future.isCancelled()) {
+                cancellation.cancel();
+            }
+        });
+        
+        try {
+            asyncExecutor().execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    asyncPermits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(new PdfSplitterException("Interrupted while waiting to split", e));
+                    return;
+                }
+                try {
+                    future.complete(splitPdfWithConfiguration(inputPdfPath, config, outputDirectory, 
+                                                              listener, cancellation));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    asyncPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new PdfSplitterException("Split could not be scheduled: " + e.getMessage(), e));
+        }
+        return future;
+    }
+
+    private synchronized ExecutorService asyncExecutor() {
+        if (closed) {
+            throw new RejectedExecutionException("the splitter service is closed");
+        }
+        if (asyncExecutor == null) {
+            asyncExecutor = AsyncExecutors.create(options.getAsyncConcurrency());
+            logger.info("Asynchronous splits run on {}, at most {} at once", 
+                       AsyncExecutors.usesVirtualThreads(asyncExecutor) ? "virtual threads" : "a platform thread pool",
+                       options.getAsyncConcurrency());
+        }
+        return asyncExecutor;
+    }
+
+    /**
+     * Splits a PDF file while its sections are still arriving, for example from
+     * {@link JsonConfigurationReader#openSections(String)}, so the first
+     * sections are written before the rest of the configuration has been read.
+     * 
+     * <p>Sections are extracted one after another in arrival order, whatever the worker count.
+     * Each section is checked against the document page count and the sections before it as it
+     * arrives; a bad section stops the split, leaving the files of earlier sections in place.
+     * An iterator may report a bad record by throwing an {@link IllegalArgumentException}.
+     * 
+     * @param inputPdfPath path to the input PDF file
+     * @param sections the sections to extract
+     * @param outputDirectory directory where split PDFs will be saved
+     * @return list of generated output file paths, in arrival order
+     * @throws PdfSplitterException if a section is invalid or splitting fails
+     */
+    public List<String> splitPdfWithSections(String inputPdfPath, Iterator<DocumentSection> sections,
+                                             String outputDirectory) throws PdfSplitterException {
+        
+        List<String> outputFiles = new ArrayList<>();
+        List<SectionReport> reports = new ArrayList<>();
+        StreamCacheCreateFunction streamCache = createStreamCache(1);
+        SectionRangeIndex ranges = new SectionRangeIndex();
+        SectionSinkFactory sinks = fileSinks(outputDirectory);
+        
+        try (SourceDocument source = new SourceDocument(openInput(inputPdfPath), streamCache, metrics, 
+                                                        documentCache)) {
+            int totalPages = openForSplit(source);
             
-            // Create output directory if it doesn't exist
             File outputDir = new File(outputDirectory);
             if (!outputDir.exists() && !outputDir.mkdirs()) {
                 throw new PdfSplitterException("Failed to create output directory: " + outputDirectory);
             }
             
-            // Process each document section
-            for (DocumentSection section : config.getDocuments()) {
-                String outputFile = extractDocumentSection(document, section, outputDirectory);
-                outputFiles.add(outputFile);
+            while (sections.hasNext()) {
+                DocumentSection section = sections.next();
+                section.validate();
+                ranges.add(section);
+                if (section.getEndPage() > totalPages) {
+                    throw new PdfSplitterException(
+                        String.format("End page %d exceeds document page count %d for section %s",
+                                    section.getEndPage(), totalPages, section.toString()));
+                }
+                
+                String outputPath = allocateOutputPath(section, inputPdfPath, outputDirectory, LocalDate.now());
+                reports.add(extractSection(source, section, outputPath, sinks, streamCache, 
+                                           SplitListener.NONE, NOT_CANCELLABLE));
+                outputFiles.add(outputPath);
             }
             
+            if (outputFiles.isEmpty()) {
+                throw new InvalidConfigurationException("Documents list cannot be null or empty");
+            }
+            if (options.isWriteManifest()) {
+                writeManifest(outputDirectory, reports);
+            }
             logger.info("Successfully split PDF into {} files", outputFiles.size());
             
+        } catch (IllegalArgumentException e) {
+            if (e.getCause() instanceof InvalidConfigurationException) {
+                throw (InvalidConfigurationException) e.getCause();
+            }
+            throw new InvalidConfigurationException("Invalid configuration: " + e.getMessage(), e);
+        } catch (UncheckedIOException e) {
+            throw new PdfSplitterException("Failed to process PDF file: " + e.getMessage(), e);
         } catch (IOException e) {
             throw new PdfSplitterException("Failed to process PDF file: " + e.getMessage(), e);
         }
@@ -100,50 +640,723 @@ public class PdfSplitterService {
     }
 
     /**
-     * Extracts a specific document section and saves it as a separate PDF.
+     * Checks an input PDF and a configuration without splitting. Only the header, the
+     * cross-reference data, the trailer and the page tree root are read, so a configuration
+     * that does not fit the document, or an input that needs a password, is found in a
+     * fraction of the time a split takes.
      * 
-     * @param sourceDocument the source PDF document
+     * @param inputPdfPath path to the input PDF file
+     * @param config the configuration to check against the document, or {@code null} to
+     *               only probe the document
+     * @return the page count, encryption and every problem found
+     * @throws PdfSplitterException if the input cannot be read as a PDF at all
+     */
+    public PreflightReport preflight(String inputPdfPath, SplitConfiguration config) throws PdfSplitterException {
+        if (!new File(inputPdfPath).isFile()) {
+            throw new PdfSplitterException("Input PDF file does not exist: " + inputPdfPath);
+        }
+        return preflight(openInput(inputPdfPath), config);
+    }
+
+    /**
+     * Checks a PDF from any {@link PdfSource} and a configuration without splitting.
+     * 
+     * @param input the input PDF; the caller closes it
+     * @param config the configuration to check against the document, or {@code null} to
+     *               only probe the document
+     * @return the page count, encryption and every problem found
+     * @throws PdfSplitterException if the input cannot be read as a PDF at all
+     * @see #preflight(String, SplitConfiguration)
+     */
+    public PreflightReport preflight(PdfSource input, SplitConfiguration config) throws PdfSplitterException {
+        try (SourceDocument source = new SourceDocument(input, createStreamCache(1), metrics, documentCache)) {
+            PreflightReport report = source.preflight();
+            if (!report.isPassed() || config == null) {
+                return report;
+            }
+            List<String> problems = new ArrayList<>();
+            try {
+                config.validate(report.getPageCount());
+            } catch (IllegalArgumentException e) {
+                problems.add(e.getMessage());
+            }
+            return report.withProblems(problems);
+        } catch (IOException e) {
+            throw new PdfSplitterException("Failed to process PDF file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Splits a PDF file into a single archive according to a JSON configuration file.
+     * 
+     * @param inputPdfPath path to the input PDF file
+     * @param configurationPath path to the JSON configuration file
+     * @param archiveStream stream receiving the archive
+     * @param format the archive format
+     * @return the entry names, in configuration order
+     * @throws PdfSplitterException if splitting fails
+     * @see #splitPdfToArchive(String, SplitConfiguration, OutputStream, ArchiveFormat)
+     */
+    public List<String> splitPdfToArchive(String inputPdfPath, String configurationPath,
+                                          OutputStream archiveStream, ArchiveFormat format) 
+            throws PdfSplitterException {
+        
+        logger.info("Starting PDF split operation into {} archive", format);
+        logger.info("Input PDF: {}", inputPdfPath);
+        logger.info("Configuration: {}", configurationPath);
+        
+        validateInputFiles(inputPdfPath, configurationPath);
+        SplitConfiguration config = readConfiguration(configurationPath);
+        return splitPdfToArchive(inputPdfPath, config, archiveStream, format);
+    }
+
+    /**
+     * Splits a PDF file into a single archive written to the given stream, instead of one file
+     * per section. Each section is streamed into its archive entry as it is saved, so nothing
+     * is staged on disk. Entry names follow {@link FileNamingService} naming and are unique
+     * within the archive. Sections are written one after another in configuration order,
+     * whatever the worker count. The archive is finished but the stream is not closed.
+     * 
+     * @param inputPdfPath path to the input PDF file
+     * @param config the split configuration
+     * @param archiveStream stream receiving the archive
+     * @param format the archive format
+     * @return the entry names, in configuration order
+     * @throws PdfSplitterException if splitting fails
+     */
+    public List<String> splitPdfToArchive(String inputPdfPath, SplitConfiguration config,
+                                          OutputStream archiveStream, ArchiveFormat format) 
+            throws PdfSplitterException {
+        return splitPdfToArchive(openInput(inputPdfPath), config, archiveStream, format);
+    }
+
+    /**
+     * Splits a PDF from any {@link PdfSource} into a single archive written to the given stream.
+     * 
+     * @param input the input PDF; the caller closes it
+     * @param config the split configuration
+     * @param archiveStream stream receiving the archive
+     * @param format the archive format
+     * @return the entry names, in configuration order
+     * @throws PdfSplitterException if splitting fails
+     * @see #splitPdfToArchive(String, SplitConfiguration, OutputStream, ArchiveFormat)
+     */
+    public List<String> splitPdfToArchive(PdfSource input, SplitConfiguration config,
+                                          OutputStream archiveStream, ArchiveFormat format) 
+            throws PdfSplitterException {
+        
+        ArchiveWriter archive = ArchiveWriter.create(format, archiveStream);
+        SectionSinkFactory entries = new SectionSinkFactory() {
+            @Override
+            public OutputStream open(DocumentSection section, String name) throws IOException {
+                return archive.beginEntry(name);
+            }
+
+            @Override
+            public void sectionWritten(SectionReport report) throws IOException {
+                archive.endEntry();
+            }
+        };
+        
+        List<String> entryNames = new ArrayList<>();
+        for (SectionReport report : split(input, config, entryNames(), entries, false, 
+                                          SplitListener.NONE, NOT_CANCELLABLE)) {
+            entryNames.add(report.getOutputName());
+        }
+        try {
+            archive.finish();
+        } catch (IOException e) {
+            throw new PdfSplitterException("Failed to finish archive: " + e.getMessage(), e);
+        }
+        
+        logger.info("Wrote {} {} entries", entryNames.size(), format);
+        return entryNames;
+    }
+
+    /**
+     * Allocates a unique name for each section of a split, after the configuration has been
+     * validated against the document.
+     */
+    @FunctionalInterface
+    private interface SectionNamer {
+        
+        List<String> allocate(List<DocumentSection> sections) throws IOException;
+    }
+
+    /**
+     * Names sections like {@link FileNamingService} names files, unique within one split.
+     */
+    private SectionNamer entryNames() {
+        return sections -> {
+            Set<String> usedNames = new HashSet<>();
+            List<String> names = new ArrayList<>(sections.size());
+            for (DocumentSection section : sections) {
+                names.add(fileNamingService.generateUniqueEntryName(
+                    section.getCategory(), section.getConfidence(), usedNames));
+            }
+            return names;
+        };
+    }
+
+    /**
+     * Allocates the output path of a section under the configured {@link OutputLayout},
+     * creating its shard directory if necessary.
+     * 
+     * @param section the section
+     * @param inputName the input description, which spreads sections of different inputs
+     *                  over different hash shards
+     * @param outputDirectory the root output directory
+     * @param date the day of the split
+     * @return the output path
+     * @throws IOException if the shard directory cannot be created
+     */
+    private String allocateOutputPath(DocumentSection section, String inputName, String outputDirectory,
+                                      LocalDate date) throws IOException {
+        String shardKey = inputName + '#' + section.getStartPage() + '-' + section.getEndPage();
+        String relativePath = fileNamingService.generateUniqueFilePath(section.getCategory(), section.getConfidence(),
+            outputDirectory, options.getOutputLayout(), shardKey, date);
+        File output = new File(outputDirectory, relativePath);
+        File shard = output.getParentFile();
+        if (options.getOutputLayout() != OutputLayout.FLAT && !shard.isDirectory() && !shard.mkdirs() 
+                && !shard.isDirectory()) {
+            throw new IOException("Failed to create output directory: " + shard);
+        }
+        return outputDirectory + File.separator + relativePath.replace('/', File.separatorChar);
+    }
+
+    /**
+     * Appends the sections of a completed split to the output manifest.
+     * 
+     * @param outputDirectory the root output directory
+     * @param reports the reports of the written sections
+     * @throws PdfSplitterException if the manifest cannot be written
+     */
+    private void writeManifest(String outputDirectory, List<SectionReport> reports) throws PdfSplitterException {
+        try {
+            OutputManifest.append(outputDirectory, reports);
+        } catch (IOException e) {
+            throw new PdfSplitterException("Failed to write output manifest: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes each section to the file whose path is its name, and deletes the files of a
+     * cancelled split. Files are created exclusively, so a file that appeared after the
+     * naming service listed the directory is never overwritten; the section moves to the
+     * next free name next to it instead.
+     */
+    private SectionSinkFactory fileSinks(String outputDirectory) {
+        Set<String> created = ConcurrentHashMap.newKeySet();
+        return new SectionSinkFactory() {
+            @Override
+            public OutputStream open(DocumentSection section, String path) throws IOException {
+                OutputStream out = Files.newOutputStream(Paths.get(path), StandardOpenOption.CREATE_NEW, 
+                                                         StandardOpenOption.WRITE);
+                created.add(path);
+                return new BufferedOutputStream(out);
+            }
+
+            @Override
+            public String rename(DocumentSection section, String path, FileAlreadyExistsException taken) {
+                String directory = new File(path).getParent();
+                String renamed = directory + File.separator + fileNamingService.generateUniqueFileName(
+                    section.getCategory(), section.getConfidence(), outputDirectory, 
+                    relativePath(outputDirectory, directory));
+                logger.warn("Output file {} already exists, writing {} instead", path, renamed);
+                return renamed;
+            }
+
+            @Override
+            public void cancelled(List<String> paths) {
+                deleteOutputs(outputDirectory, paths, created);
+            }
+        };
+    }
+
+    /**
+     * Loads the input, validates the configuration against it, allocates the section names and
+     * extracts every section into its sink. All public split operations end up here.
+     * 
+     * @param input the input PDF
+     * @param config the split configuration
+     * @param namer allocates the section names once the configuration is known to be valid
+     * @param sinks supplies the destination of each section
+     * @param parallel whether the sinks allow sections to be written concurrently
+     * @param listener receives section start and completion events
+     * @param cancellation token checked while splitting
+     * @return the reports of all sections, in configuration order
+     * @throws PdfSplitterException if splitting fails or is cancelled
+     */
+    private List<SectionReport> split(PdfSource input, SplitConfiguration config, SectionNamer namer,
+                                      SectionSinkFactory sinks, boolean parallel, SplitListener listener,
+                                      CancellationToken cancellation) throws PdfSplitterException {
+        
+        List<DocumentSection> sections = config.getDocuments();
+        int workerCount = parallel ? Math.max(1, Math.min(options.getWorkerCount(), sections.size())) : 1;
+        StreamCacheCreateFunction streamCache = createStreamCache(workerCount);
+        List<SectionReport> reports;
+        
+        try (SourceDocument source = new SourceDocument(input, streamCache, metrics, documentCache)) {
+            int totalPages = openForSplit(source);
+            reports = extract(source, totalPages, config, namer, sinks, workerCount, streamCache, 
+                              listener, cancellation);
+        } catch (IOException e) {
+            throw new PdfSplitterException("Failed to process PDF file: " + e.getMessage(), e);
+        }
+        
+        return reports;
+    }
+
+    /**
+     * Validates a configuration against an opened source, allocates the section names and
+     * extracts every section into its sink.
+     * 
+     * @param source the opened source PDF handle
+     * @param totalPages the page count of the source
+     * @param config the split configuration
+     * @param namer allocates the section names once the configuration is known to be valid
+     * @param sinks supplies the destination of each section
+     * @param workerCount the number of workers, 1 to extract on the calling thread only
+     * @param streamCache the stream cache factory for the section documents
+     * @param listener receives section start and completion events
+     * @param cancellation token checked while splitting
+     * @return the reports of all sections, in configuration order
+     * @throws IOException if the section names cannot be allocated
+     * @throws PdfSplitterException if the configuration does not fit or extraction fails
+     */
+    private List<SectionReport> extract(SourceDocument source, int totalPages, SplitConfiguration config,
+                                        SectionNamer namer, SectionSinkFactory sinks, int workerCount,
+                                        StreamCacheCreateFunction streamCache, SplitListener listener,
+                                        CancellationToken cancellation) throws IOException, PdfSplitterException {
+        
+        // Fail before any worker opens the source if the configuration does not fit it
+        validatePageRanges(config, totalPages);
+        
+        List<DocumentSection> sections = config.getDocuments();
+        List<SectionReport> reports;
+        List<String> names = namer.allocate(sections);
+        try {
+            if (workerCount > 1) {
+                reports = extractSectionsInParallel(source, sections, names, sinks, workerCount, 
+                                                    streamCache, listener, cancellation);
+            } else {
+                reports = new ArrayList<>(sections.size());
+                for (int i = 0; i < sections.size(); i++) {
+                    reports.add(extractSection(source, sections.get(i), names.get(i), sinks, 
+                                               streamCache, listener, cancellation));
+                }
+            }
+        } catch (PdfSplitterException e) {
+            if (cancellation.isCancelled()) {
+                sinks.cancelled(names);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            // A listener or PDFBox gave up halfway through a section, so nothing written can be trusted
+            sinks.cancelled(names);
+            throw new PdfSplitterException("Section extraction failed: " + e.getMessage(), e);
+        }
+        
+        logger.info("Successfully split PDF into {} sections", reports.size());
+        return reports;
+    }
+
+    /**
+     * Returns a namer that allocates file paths in an output directory. Names are allocated up
+     * front, in configuration order, so that concurrent workers produce exactly the names a
+     * sequential run would.
+     */
+    private SectionNamer fileNamer(PdfSource input, String outputDirectory) {
+        return sections -> {
+            File outputDir = new File(outputDirectory);
+            if (!outputDir.exists() && !outputDir.mkdirs()) {
+                throw new IOException("Failed to create output directory: " + outputDirectory);
+            }
+            LocalDate today = LocalDate.now();
+            List<String> paths = new ArrayList<>(sections.size());
+            try {
+                for (DocumentSection section : sections) {
+                    paths.add(allocateOutputPath(section, input.toString(), outputDirectory, today));
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return paths;
+        };
+    }
+
+    /**
+     * Opens an input path, memory-mapped when {@link SplitOptions#isMemoryMappedInput()} is set.
+     * File sources hold no resources, so they need not be closed.
+     */
+    private PdfSource openInput(String inputPdfPath) {
+        File inputFile = new File(inputPdfPath);
+        return options.isMemoryMappedInput() ? PdfSource.mappedFile(inputFile) : PdfSource.file(inputFile);
+    }
+
+    /**
+     * Creates the PDFBox stream cache for the documents of one split. In low-memory mode the
+     * budget is shared evenly between the source and section document of every worker.
+     * 
+     * @param workerCount the number of workers taking part in the split
+     * @return the stream cache factory to use for all documents of the split
+     */
+    private StreamCacheCreateFunction createStreamCache(int workerCount) {
+        if (!options.isMemoryBounded()) {
+            return IOUtils.createMemoryOnlyStreamCache();
+        }
+        
+        long perDocumentBudget = options.getMemoryBudgetBytes() / (2L * workerCount);
+        MemoryUsageSetting setting = perDocumentBudget > 0 
+            ? MemoryUsageSetting.setupMixed(perDocumentBudget) 
+            : MemoryUsageSetting.setupTempFileOnly();
+        if (options.getScratchDirectory() != null) {
+            setting.setTempDir(new File(options.getScratchDirectory()));
+        }
+        logger.info("Low-memory mode: {} bytes of buffer memory per open document", perDocumentBudget);
+        return setting.streamCache;
+    }
+
+    /**
+     * Extracts sections using several workers. The calling thread works on the already
+     * loaded document while every additional worker loads its own copy of the source, so
+     * no PDFBox object is ever shared between threads.
+     * 
+     * @param source the source handle owned by the calling thread
+     * @param sections the sections to extract
+     * @param names the pre-allocated name for each section
+     * @param sinks supplies the destination of each section
+     * @param workerCount the total number of workers, including the calling thread
+     * @param streamCache the stream cache factory for newly opened documents
+     * @param listener receives section events from all workers
+     * @param cancellation token checked by all workers
+     * @return the reports of all sections, in configuration order
+     * @throws PdfSplitterException if any section fails, once every worker has stopped
+     * @throws RuntimeException if a listener or PDFBox throws one, once every worker has stopped
+     */
+    private List<SectionReport> extractSectionsInParallel(SourceDocument source, List<DocumentSection> sections, 
+                                                          List<String> names, SectionSinkFactory sinks, 
+                                                          int workerCount, StreamCacheCreateFunction streamCache,
+                                                   SplitListener listener, CancellationToken cancellation) 
+            throws PdfSplitterException {
+        
+        logger.info("Extracting {} sections with {} workers", sections.size(), workerCount);
+        
+        SectionReport[] reports = new SectionReport[sections.size()];
+        AtomicInteger nextSection = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount - 1, runnable -> {
+            Thread thread = new Thread(runnable, "pdf-splitter-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        Exception failure = null;
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 1; i < workerCount; i++) {
+                futures.add(executor.submit(() -> {
+                    try (SourceDocument handle = new SourceDocument(source.getInput(), streamCache, metrics, 
+                                                                    documentCache)) {
+                        drainSections(handle, sections, names, sinks, reports, 
+                                      nextSection, failed, streamCache, listener, cancellation);
+                    } catch (IOException e) {
+                        failed.set(true);
+                        throw new PdfSplitterException("Failed to close PDF file: " + e.getMessage(), e);
+                    }
+                    return null;
+                }));
+            }
+            
+            try {
+                drainSections(source, sections, names, sinks, reports, 
+                              nextSection, failed, streamCache, listener, cancellation);
+            } catch (PdfSplitterException | RuntimeException e) {
+                failure = e;
+            }
+            
+            // Wait for every worker, even after a failure, so no file is still being written
+            // when the caller cleans up
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        Throwable cause = e.getCause();
+                        failure = cause instanceof PdfSplitterException || cause instanceof RuntimeException
+                            ? (Exception) cause 
+                            : new PdfSplitterException("Section extraction failed: " + cause.getMessage(), cause);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PdfSplitterException("Interrupted while extracting sections", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure != null) {
+            throw (PdfSplitterException) failure;
+        }
+        return Arrays.asList(reports);
+    }
+
+    /**
+     * Extracts sections claimed from a shared counter until none remain or another worker fails.
+     */
+    private void drainSections(SourceDocument source, List<DocumentSection> sections, 
+                               List<String> names, SectionSinkFactory sinks, SectionReport[] reports,
+                               AtomicInteger nextSection, AtomicBoolean failed, 
+                               StreamCacheCreateFunction streamCache, SplitListener listener,
+                               CancellationToken cancellation) throws PdfSplitterException {
+        int index;
+        while (!failed.get() && (index = nextSection.getAndIncrement()) < sections.size()) {
+            try {
+                reports[index] = extractSection(source, sections.get(index), names.get(index), sinks,
+                                                streamCache, listener, cancellation);
+            } catch (PdfSplitterException | RuntimeException e) {
+                failed.set(true);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Extracts a specific document section and writes it as a separate PDF to its sink.
+     * 
+     * @param source the source PDF handle
      * @param section the document section to extract
-     * @param outputDirectory the output directory
-     * @return path to the generated file
-     * @throws PdfSplitterException if extraction fails
+     * @param name the file path or entry name allocated for the section
+     * @param sinks supplies the destination of the section
+     * @param streamCache the stream cache factory for the section document
+     * @param listener receives the section start and completion events
+     * @param cancellation token checked before the section and each of its pages
+     * @return bytes written and save time for the section
+     * @throws PdfSplitterException if extraction fails or is cancelled
      */
-    private String extractDocumentSection(PDDocument sourceDocument, DocumentSection section, 
-                                        String outputDirectory) throws PdfSplitterException {
+    private SectionReport extractSection(SourceDocument source, DocumentSection section, String name,
+                                         SectionSinkFactory sinks, StreamCacheCreateFunction streamCache,
+                                         SplitListener listener, CancellationToken cancellation) 
+            throws PdfSplitterException {
         
+        cancellation.throwIfCancelled();
         logger.debug("Extracting section: {}", section);
         
+        SectionReport report;
+        String outputName = name;
         try {
-            // Create a new document for this section
-            PDDocument sectionDocument = new PDDocument();
+            OutputStream sink;
+            while (true) {
+                try {
+                    sink = sinks.open(section, outputName);
+                    break;
+                } catch (FileAlreadyExistsException e) {
+                    outputName = sinks.rename(section, outputName, e);
+                }
+            }
+            try (OutputStream out = sink) {
+                listener.onSectionStarted(section, outputName);
+                report = writeSection(source, section, outputName, streamCache, out, cancellation);
+            }
+            sinks.sectionWritten(report);
+        } catch (IOException e) {
+            throw new PdfSplitterException(
+                String.format("Failed to extract section %s: %s", section.toString(), e.getMessage()), e);
+        }
+        
+        logger.info("Wrote section: {} (pages {}-{}, {} bytes, saved in {} ms)", new File(outputName).getName(), 
+                   section.getStartPage(), section.getEndPage(), 
+                   report.getBytesWritten(), report.getSaveMillis());
+        listener.onSectionCompleted(report);
+        
+        return report;
+    }
+
+    /**
+     * Copies the pages of a section into a new document and saves it to the given stream using
+     * the configured {@link SaveProfile}. PDFBox closes the stream once the document has been
+     * written.
+     * 
+     * @param source the source PDF handle
+     * @param section the document section to extract
+     * @param outputName the file path or entry name allocated for the section
+     * @param streamCache the stream cache factory for the section document
+     * @param out the stream receiving the section PDF
+     * @param cancellation token checked before each page is copied and before saving
+     * @return bytes written and save time for the section
+     * @throws IOException if the section cannot be copied or written
+     * @throws SplitCancelledException if the token is cancelled before the section is saved
+     */
+    private SectionReport writeSection(SourceDocument source, DocumentSection section, String outputName,
+                                       StreamCacheCreateFunction streamCache, OutputStream out,
+                                       CancellationToken cancellation) throws IOException, SplitCancelledException {
+        
+        long sectionStartNanos = metricsEnabled ? System.nanoTime() : 0;
+        String fileName = new File(outputName).getName();
+        // Digest the bytes on their way to the sink, so the manifest needs no second read
+        MessageDigest sha256 = options.isWriteManifest() ? OutputManifest.newDigest() : null;
+        CountingOutputStream counter = new CountingOutputStream(
+            sha256 != null ? new DigestOutputStream(out, sha256) : out);
+        long saveNanos;
+        
+        // Create a new document for this section
+        try (PDDocument sectionDocument = new PDDocument(streamCache)) {
+            PDDocument sourceDocument = source.get();
+            long copyStartNanos = metricsEnabled ? System.nanoTime() : 0;
             
             // Copy pages from source to section document (PDFBox uses 0-based indexing)
             int startPageIndex = section.getStartPage() - 1;
             int endPageIndex = section.getEndPage() - 1;
             
-            for (int i = startPageIndex; i <= endPageIndex; i++) {
-                sectionDocument.addPage(sourceDocument.getPage(i));
+            ResourcePruner pruner = options.isPruneResources() ? new ResourcePruner() : null;
+            if (options.isSelectiveExtraction() || pruner != null) {
+                // Pruning replaces /Resources, so it must work on copies that leave the source intact
+                SelectivePageCopier copier = new SelectivePageCopier(options.isSelectiveExtraction());
+                for (PDPage page : copier.copy(sourceDocument, startPageIndex, endPageIndex, cancellation)) {
+                    if (pruner != null) {
+                        pruner.prune(page);
+                    }
+                    sectionDocument.addPage(page);
+                }
+                if (copier.getDroppedReferences() > 0) {
+                    logger.debug("Dropped {} links to pages outside {}", copier.getDroppedReferences(), fileName);
+                }
+            } else {
+                for (int i = startPageIndex; i <= endPageIndex; i++) {
+                    cancellation.throwIfCancelled();
+                    sectionDocument.addPage(sourceDocument.getPage(i));
+                }
+            }
+            if (pruner != null) {
+                logger.info("Pruned unused resources from {}: about {} bytes saved", fileName, pruner.getBytesSaved());
             }
             
-            // Generate unique filename
-            String fileName = fileNamingService.generateUniqueFileName(
-                section.getCategory(), section.getConfidence(), outputDirectory);
-            
-            String outputPath = outputDirectory + File.separator + fileName;
+            assignDocumentId(sourceDocument, sectionDocument, section, fileName);
+            if (metricsEnabled) {
+                metrics.recordTime(SplitPhase.COPY, System.nanoTime() - copyStartNanos);
+                metrics.increment(SplitCounter.PAGES_COPIED, endPageIndex - startPageIndex + 1);
+            }
             
             // Save the section document
-            sectionDocument.save(outputPath);
-            sectionDocument.close();
-            
-            logger.info("Created file: {} (pages {}-{})", fileName, 
-                       section.getStartPage(), section.getEndPage());
-            
-            return outputPath;
-            
-        } catch (IOException e) {
-            throw new PdfSplitterException(
-                String.format("Failed to extract section %s: %s", section.toString(), e.getMessage()), e);
+            cancellation.throwIfCancelled();
+            long startNanos = System.nanoTime();
+            SaveProfile profile = options.getSaveProfile();
+            if (profile == SaveProfile.COMPACT) {
+                StreamCompactor compactor = new StreamCompactor();
+                compactor.compact(sectionDocument);
+                logger.debug("Compacted {}: {} streams recompressed, {} duplicates merged", 
+                            fileName, compactor.getRecompressedCount(), compactor.getMergedCount());
+            }
+            sectionDocument.save(counter, compressParametersFor(profile));
+            saveNanos = System.nanoTime() - startNanos;
+        }
+        
+        // Drop everything parsed for this section before moving on
+        if (options.isMemoryBounded()) {
+            source.release();
+        }
+        
+        if (metricsEnabled) {
+            metrics.recordTime(SplitPhase.SAVE, saveNanos);
+            metrics.recordTime(SplitPhase.SECTION, System.nanoTime() - sectionStartNanos);
+            metrics.increment(SplitCounter.BYTES_WRITTEN, counter.getByteCount());
+            metrics.increment(SplitCounter.SECTIONS_WRITTEN, 1);
+        }
+        return new SectionReport(section, outputName, counter.getByteCount(), saveNanos,
+                                 sha256 != null ? SplitResultCache.toHex(sha256.digest()) : null);
+    }
+
+    /**
+     * Deletes the files of a cancelled split and returns their names to the naming service.
+     * Names whose file was never created are released as well, unless another file took the
+     * name meanwhile; such files are left alone.
+     * 
+     * @param outputDirectory the root output directory
+     * @param outputPaths the paths allocated for the sections of the split
+     * @param created the paths of the files the split created, including renamed ones
+     */
+    private void deleteOutputs(String outputDirectory, List<String> outputPaths, Set<String> created) {
+        Set<String> paths = new LinkedHashSet<>(outputPaths);
+        paths.addAll(created);
+        int deleted = 0;
+        for (String outputPath : paths) {
+            File output = new File(outputPath);
+            if (!created.contains(outputPath)) {
+                if (output.exists()) {
+                    // Never opened by this split, so the file belongs to someone else
+                    continue;
+                }
+            } else if (output.delete()) {
+                deleted++;
+            } else if (output.exists()) {
+                logger.warn("Failed to delete output of cancelled split: {}", output);
+                continue;
+            }
+            fileNamingService.release(relativePath(outputDirectory, outputPath), outputDirectory);
+        }
+        logger.info("Split cancelled, deleted {} output files from {}", deleted, outputDirectory);
+    }
+
+    /**
+     * Returns a path below the output directory relative to it, using {@code /} between
+     * directories as the naming service does.
+     */
+    private static String relativePath(String outputDirectory, String path) {
+        return Paths.get(outputDirectory).relativize(Paths.get(path)).toString().replace(File.separatorChar, '/');
+    }
+
+    private CompressParameters compressParametersFor(SaveProfile profile) {
+        switch (profile) {
+            case FAST:
+                return CompressParameters.NO_COMPRESSION;
+            case COMPACT:
+                return COMPACT_COMPRESSION;
+            default:
+                return CompressParameters.DEFAULT_COMPRESSION;
+        }
+    }
+
+    /**
+     * Gives the section document a trailer ID derived from the source ID and the section,
+     * instead of the time-based ID PDFBox would generate. This keeps output reproducible
+     * regardless of which worker wrote the section, or when.
+     * 
+     * @param sourceDocument the source PDF document
+     * @param sectionDocument the section document about to be saved
+     * @param section the section being extracted
+     * @param fileName the file name allocated for the section
+     */
+    private void assignDocumentId(PDDocument sourceDocument, PDDocument sectionDocument, 
+                                  DocumentSection section, String fileName) {
+        MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 digest not available", e);
         }
+        
+        COSArray sourceId = sourceDocument.getDocument().getDocumentID();
+        if (sourceId != null) {
+            for (COSBase element : sourceId) {
+                if (element instanceof COSString) {
+                    md5.update(((COSString) element).getBytes());
+                }
+            }
+        }
+        md5.update(String.format("%s|%d|%d|%s", section.getCategory(), section.getStartPage(), 
+                                 section.getEndPage(), fileName).getBytes(StandardCharsets.UTF_8));
+        
+        byte[] id = md5.digest();
+        COSArray idArray = new COSArray();
+        idArray.add(new COSString(id));
+        idArray.add(new COSString(id));
+        sectionDocument.getDocument().setDocumentID(idArray);
     }
 
     /**
@@ -157,6 +1370,29 @@ public class PdfSplitterService {
     private void validateInputs(String inputPdfPath, String configurationPath, String outputDirectory) 
             throws PdfSplitterException {
         
+        validateInputFiles(inputPdfPath, configurationPath);
+        
+        // Check output directory
+        File outputDir = new File(outputDirectory);
+        if (outputDir.exists() && !outputDir.isDirectory()) {
+            throw new PdfSplitterException("Output path exists but is not a directory: " + outputDirectory);
+        }
+        
+        File parentDir = outputDir.getParentFile();
+        if (parentDir != null && !parentDir.canWrite()) {
+            throw new PdfSplitterException("Cannot write to output directory parent: " + parentDir.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Validates that the input PDF and configuration file are readable.
+     * 
+     * @param inputPdfPath path to input PDF
+     * @param configurationPath path to configuration file
+     * @throws PdfSplitterException if validation fails
+     */
+    private void validateInputFiles(String inputPdfPath, String configurationPath) throws PdfSplitterException {
+        
         // Check input PDF
         File inputFile = new File(inputPdfPath);
         if (!inputFile.exists()) {
@@ -174,17 +1410,6 @@ public class PdfSplitterService {
         if (!configFile.canRead()) {
             throw new PdfSplitterException("Cannot read configuration file: " + configurationPath);
         }
-        
-        // Check output directory
-        File outputDir = new File(outputDirectory);
-        if (outputDir.exists() && !outputDir.isDirectory()) {
-            throw new PdfSplitterException("Output path exists but is not a directory: " + outputDirectory);
-        }
-        
-        File parentDir = outputDir.getParentFile();
-        if (parentDir != null && !parentDir.canWrite()) {
-            throw new PdfSplitterException("Cannot write to output directory parent: " + parentDir.getAbsolutePath());
-        }
     }
 
     /**
@@ -196,30 +1421,50 @@ public class PdfSplitterService {
      */
     private SplitConfiguration readConfiguration(String configurationPath) throws PdfSplitterException {
         try {
-            return new chongwm.utils.pdf.util.JsonConfigurationReader().readConfiguration(configurationPath);
-        } catch (chongwm.utils.pdf.exception.InvalidConfigurationException e) {
+            return configurationReader.readConfiguration(configurationPath);
+        } catch (InvalidConfigurationException e) {
             throw new PdfSplitterException("Configuration error: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Validates that all page ranges are within the document bounds.
+     * Opens the source with a preflight and returns its page count.
+     * 
+     * @param source the source handle
+     * @return the number of pages in the document
+     * @throws IOException if the source cannot be parsed
+     * @throws PdfSplitterException if the source needs a password
+     */
+    private int openForSplit(SourceDocument source) throws IOException, PdfSplitterException {
+        PreflightReport report = source.preflight();
+        if (!report.isPassed()) {
+            throw new PdfSplitterException(report.getProblems().get(0));
+        }
+        if (report.isRepairNeeded()) {
+            logger.warn("Input PDF {} has damaged cross-reference data and was repaired while loading", 
+                       report.getSource());
+        }
+        logger.info("Input PDF has {} pages", report.getPageCount());
+        return report.getPageCount();
+    }
+
+    /**
+     * Validates the configuration against the document, reporting every overlapping pair and
+     * every section past the last page.
      * 
      * @param config the configuration to validate
      * @param totalPages total pages in the document
      * @throws PdfSplitterException if validation fails
      */
     private void validatePageRanges(SplitConfiguration config, int totalPages) throws PdfSplitterException {
-        for (DocumentSection section : config.getDocuments()) {
-            if (section.getStartPage() > totalPages) {
-                throw new PdfSplitterException(
-                    String.format("Start page %d exceeds document page count %d for section %s",
-                                section.getStartPage(), totalPages, section.getCategory()));
-            }
-            if (section.getEndPage() > totalPages) {
-                throw new PdfSplitterException(
-                    String.format("End page %d exceeds document page count %d for section %s",
-                                section.getEndPage(), totalPages, section.getCategory()));
+        long startNanos = metricsEnabled ? System.nanoTime() : 0;
+        try {
+            config.validate(totalPages);
+        } catch (IllegalArgumentException e) {
+            throw new PdfSplitterException(e.getMessage(), e);
+        } finally {
+            if (metricsEnabled) {
+                metrics.recordTime(SplitPhase.VALIDATE, System.nanoTime() - startNanos);
             }
         }
     }
@@ -0,0 +1,240 @@
+package chongwm.utils.pdf.service;
+
+import org.apache.pdfbox.contentstream.PDContentStream;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageTree;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replaces the resource dictionary of each copied page with one that holds only the fonts,
+ * XObjects, graphics states, patterns and shadings its content stream actually uses. Scanner
+ * output often hangs one huge resource dictionary off every page (or the page tree root), so
+ * without pruning a one-page section drags every font and image of the source along.
+ *
+ * <p>The pruned dictionary replaces {@code /Resources} of the page passed in, so that page must
+ * be a copy owned by the section, as made by {@link SelectivePageCopier}. The source page and
+ * its resource dictionaries are never modified; a source kept open for later splits, or shared
+ * by several configurations, still has every resource when the next section needs it.
+ * Inheritable attributes are copied onto the page first, in case the page tree it inherits them
+ * from is not copied.
+ *
+ * <p>One instance is used per section and tallies the encoded stream bytes reachable from the
+ * original and pruned resources, which approximates the bytes saved.
+ */
+class ResourcePruner {
+
+    private static final COSName[] PRUNED_CATEGORIES = {
+        COSName.FONT, COSName.XOBJECT, COSName.EXT_G_STATE, COSName.PATTERN, COSName.SHADING
+    };
+    private static final COSName[] INHERITABLE = {
+        COSName.MEDIA_BOX, COSName.CROP_BOX, COSName.ROTATE
+    };
+
+    private final Set<COSBase> originalVisited = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<COSBase> prunedVisited = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long originalBytes;
+    private long prunedBytes;
+
+    /**
+     * Prunes the resources of a page before it is added to a section document.
+     *
+     * @param page the section's copy of a source page
+     * @throws IOException if the content stream cannot be parsed
+     */
+    void prune(PDPage page) throws IOException {
+        COSDictionary pageDictionary = page.getCOSObject();
+        for (COSName key : INHERITABLE) {
+            if (!pageDictionary.containsKey(key)) {
+                COSBase inherited = PDPageTree.getInheritableAttribute(pageDictionary, key);
+                if (inherited != null) {
+                    pageDictionary.setItem(key, inherited);
+                }
+            }
+        }
+
+        PDResources resources = page.getResources();
+        if (resources == null) {
+            return;
+        }
+
+        Map<COSName, Set<COSName>> used = new HashMap<>();
+        Set<COSBase> scannedForms = Collections.newSetFromMap(new IdentityHashMap<>());
+        collectUsedNames(page, resources, used, scannedForms);
+
+        COSDictionary original = resources.getCOSObject();
+        COSDictionary pruned = new COSDictionary();
+        for (COSName key : original.keySet()) {
+            COSBase value = original.getItem(key);
+            if (!isPrunedCategory(key)) {
+                pruned.setItem(key, value);
+                continue;
+            }
+            COSBase category = resolve(value);
+            if (!(category instanceof COSDictionary)) {
+                continue;
+            }
+            COSDictionary kept = new COSDictionary();
+            Set<COSName> names = used.getOrDefault(key, Collections.emptySet());
+            for (COSName name : names) {
+                COSBase entry = ((COSDictionary) category).getItem(name);
+                if (entry != null) {
+                    kept.setItem(name, entry);
+                }
+            }
+            if (kept.size() > 0) {
+                pruned.setItem(key, kept);
+            }
+        }
+
+        originalBytes += reachableStreamBytes(original, originalVisited);
+        prunedBytes += reachableStreamBytes(pruned, prunedVisited);
+        pageDictionary.setItem(COSName.RESOURCES, pruned);
+    }
+
+    /**
+     * Returns the approximate number of encoded bytes dropped from the section so far.
+     *
+     * @return bytes saved by pruning
+     */
+    long getBytesSaved() {
+        return originalBytes - prunedBytes;
+    }
+
+    /**
+     * Records the resource names used by a content stream. Form XObjects without their own
+     * resources draw on the enclosing resources, so their content is scanned as well.
+     */
+    private void collectUsedNames(PDContentStream contentStream, PDResources resources,
+                                  Map<COSName, Set<COSName>> used, Set<COSBase> scannedForms) throws IOException {
+        PDFStreamParser parser = new PDFStreamParser(contentStream);
+        List<COSBase> operands = new ArrayList<>();
+        Object token;
+        while ((token = parser.parseNextToken()) != null) {
+            if (!(token instanceof Operator)) {
+                if (token instanceof COSBase) {
+                    operands.add((COSBase) token);
+                }
+                continue;
+            }
+
+            String operator = ((Operator) token).getName();
+            switch (operator) {
+                case "Tf":
+                    markFirstName(operands, COSName.FONT, used);
+                    break;
+                case "gs":
+                    markFirstName(operands, COSName.EXT_G_STATE, used);
+                    break;
+                case "sh":
+                    markFirstName(operands, COSName.SHADING, used);
+                    break;
+                case "scn":
+                case "SCN":
+                    if (!operands.isEmpty() && operands.get(operands.size() - 1) instanceof COSName) {
+                        mark(COSName.PATTERN, (COSName) operands.get(operands.size() - 1), used);
+                    }
+                    break;
+                case "Do":
+                    if (!operands.isEmpty() && operands.get(0) instanceof COSName) {
+                        COSName name = (COSName) operands.get(0);
+                        mark(COSName.XOBJECT, name, used);
+                        scanInheritingForm(resources, name, used, scannedForms);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            operands.clear();
+        }
+    }
+
+    private void scanInheritingForm(PDResources resources, COSName name, Map<COSName, Set<COSName>> used,
+                                    Set<COSBase> scannedForms) throws IOException {
+        COSDictionary xObjects = resources.getCOSObject().getCOSDictionary(COSName.XOBJECT);
+        if (xObjects == null) {
+            return;
+        }
+        COSBase xObject = resolve(xObjects.getItem(name));
+        if (!(xObject instanceof COSStream) || !scannedForms.add(xObject)) {
+            return;
+        }
+        COSStream stream = (COSStream) xObject;
+        if (COSName.FORM.equals(stream.getCOSName(COSName.SUBTYPE))
+                && !stream.containsKey(COSName.RESOURCES)) {
+            collectUsedNames(new PDFormXObject(stream), resources, used, scannedForms);
+        }
+    }
+
+    private void markFirstName(List<COSBase> operands, COSName category, Map<COSName, Set<COSName>> used) {
+        if (!operands.isEmpty() && operands.get(0) instanceof COSName) {
+            mark(category, (COSName) operands.get(0), used);
+        }
+    }
+
+    private void mark(COSName category, COSName name, Map<COSName, Set<COSName>> used) {
+        used.computeIfAbsent(category, key -> new HashSet<>()).add(name);
+    }
+
+    private boolean isPrunedCategory(COSName key) {
+        for (COSName category : PRUNED_CATEGORIES) {
+            if (category.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sums the encoded length of every stream reachable from an object that has not been
+     * counted yet in this section.
+     */
+    private long reachableStreamBytes(COSBase root, Set<COSBase> visited) {
+        long total = 0;
+        List<COSBase> pending = new ArrayList<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            COSBase base = resolve(pending.remove(pending.size() - 1));
+            if (base == null || !visited.add(base)) {
+                continue;
+            }
+            if (base instanceof COSStream) {
+                total += ((COSStream) base).getLength();
+            }
+            if (base instanceof COSDictionary) {
+                for (Map.Entry<COSName, COSBase> entry : ((COSDictionary) base).entrySet()) {
+                    if (!COSName.PARENT.equals(entry.getKey())) {
+                        pending.add(entry.getValue());
+                    }
+                }
+            } else if (base instanceof COSArray) {
+                for (COSBase element : (COSArray) base) {
+                    pending.add(element);
+                }
+            }
+        }
+        return total;
+    }
+
+    private COSBase resolve(COSBase base) {
+        return base instanceof COSObject ? ((COSObject) base).getObject() : base;
+    }
+}
@@ -0,0 +1,88 @@
+package chongwm.utils.pdf.service;
+
+import chongwm.utils.pdf.model.DocumentSection;
+import chongwm.utils.pdf.model.SectionReport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.util.List;
+
+/**
+ * Supplies the destination of each section of a split, so sections can go to sockets, pipes,
+ * in-memory buffers or archive entries without an intermediate file.
+ *
+ * <p>{@link #open} is called once per section, just before its pages are copied. The section
+ * PDF is written to the returned stream, which is closed once the section is complete; then
+ * {@link #sectionWritten} is called. With more than one worker these calls arrive concurrently
+ * from the worker threads, so implementations must be thread-safe.
+ */
+@FunctionalInterface
+public interface SectionSinkFactory {
+
+    /**
+     * Opens the destination of one section.
+     *
+     * @param section the section about to be written
+     * @param name the unique name allocated for the section
+     * @return the stream receiving the section PDF; the splitter closes it
+     * @throws IOException if the destination cannot be opened
+     */
+    OutputStream open(DocumentSection section, String name) throws IOException;
+
+    /**
+     * Returns another name for a section whose destination could not be opened because its
+     * name was taken meanwhile, signalled by {@link #open} throwing
+     * {@link FileAlreadyExistsException}. The splitter then opens the new name instead and
+     * reports the section under it. By default the section fails.
+     *
+     * @param section the section about to be written
+     * @param name the name that was taken
+     * @param taken the exception thrown by {@link #open}
+     * @return the name to try next
+     * @throws IOException if no other name can be allocated
+     */
+    default String rename(DocumentSection section, String name, FileAlreadyExistsException taken) 
+            throws IOException {
+        throw taken;
+    }
+
+    /**
+     * Called after a section was written and its stream closed.
+     *
+     * @param report the name, bytes written and save time of the section
+     * @throws IOException if completing the destination fails
+     */
+    default void sectionWritten(SectionReport report) throws IOException {
+    }
+
+    /**
+     * Called when a split is cancelled, after every worker has stopped, so destinations that
+     * were opened can be discarded.
+     *
+     * @param names the names allocated for all sections of the split, whether opened or not
+     */
+    default void cancelled(List<String> names) {
+    }
+
+    /**
+     * Adapts a factory of channels. Each channel is closed when its section is complete.
+     *
+     * @param channels opens the channel for a section
+     * @return the sink factory
+     */
+    static SectionSinkFactory ofChannels(ChannelFactory channels) {
+        return (section, name) -> Channels.newOutputStream(channels.open(section, name));
+    }
+
+    /**
+     * Opens a {@link WritableByteChannel} per section.
+     */
+    @FunctionalInterface
+    interface ChannelFactory {
+
+        WritableByteChannel open(DocumentSection section, String name) throws IOException;
+    }
+}
@@ -0,0 +1,292 @@
+package chongwm.utils.pdf.service;
+
+import chongwm.utils.pdf.exception.SplitCancelledException;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageTree;
+import org.apache.pdfbox.pdmodel.interactive.action.PDActionGoTo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies the pages of one section while resolving as little of the source as possible.
+ * PDFBox parses objects lazily as they are dereferenced, but two things defeat that when a
+ * few pages are taken from a large document:
+ *
+ * <ul>
+ *   <li>{@link PDDocument#getPage(int)} resolves every kid of each page tree node it visits,
+ *       so the first lookup in a flat tree of 4,000 pages parses 4,000 page dictionaries.
+ *       {@link #locate} walks the tree once per section and skips every subtree before the
+ *       section by its {@code /Count}, so only the kids of the nodes on the way to the
+ *       section, up to its last page, are resolved. A node's own {@code /Count} cannot tell
+ *       whether its kids are all leaves, since an empty intermediate node offsets a larger
+ *       one, so kids of the same node are always visited in order. In a flat tree, which is
+ *       what {@link PDDocument#addPage} and most generators write, that still resolves every
+ *       page before the section: lookup costs O(position of the section's last page), not
+ *       O(section length). Extracting 3 pages from the middle of a flat 4,000-page document
+ *       allocates about 19 MB instead of 33 MB. Only balanced trees get the logarithmic
+ *       descent.</li>
+ *   <li>Saving writes everything reachable from the copied pages. A link or an annotation
+ *       {@code /P} that points at a page outside the section reaches that page, its
+ *       {@code /Parent} and from there the whole source page tree. Copies made here leave out
+ *       {@code /Parent} and {@code /B}, and their annotations are copied with {@code /P}
+ *       pointing at the copy and link destinations outside the section dropped; destinations
+ *       inside it are pointed at the copies.</li>
+ * </ul>
+ *
+ * <p>Each page is a shallow copy of the source dictionary with its inheritable attributes
+ * filled in, so the source page tree and its annotations are never modified and later sections
+ * read from the same handle see the source as it was. Contents and resources are shared with
+ * the source, as before. Resource pruning relies on this: it replaces {@code /Resources} of the
+ * copies, so without selective extraction pruned sections are copied here too, with pages
+ * looked up through {@link PDDocument#getPage(int)}.
+ */
+class SelectivePageCopier {
+
+    private static final COSName[] INHERITABLE = {
+        COSName.RESOURCES, COSName.MEDIA_BOX, COSName.CROP_BOX, COSName.ROTATE
+    };
+    private static final COSName GO_TO = COSName.getPDFName(PDActionGoTo.SUB_TYPE);
+    private static final int MAX_TREE_DEPTH = 64;
+
+    private final boolean locateSelectively;
+    private final Map<COSDictionary, COSDictionary> copies = new IdentityHashMap<>();
+    private final Map<COSDictionary, COSDictionary> annotationCopies = new IdentityHashMap<>();
+    private int droppedReferences;
+
+    /**
+     * @param locateSelectively whether pages are found with {@link #locate} instead of
+     *                          {@link PDDocument#getPage(int)}
+     */
+    SelectivePageCopier(boolean locateSelectively) {
+        this.locateSelectively = locateSelectively;
+    }
+
+    /**
+     * Copies the pages {@code startPageIndex} to {@code endPageIndex} of the source, both
+     * 0-based and inclusive.
+     *
+     * @param sourceDocument the source PDF document
+     * @param startPageIndex index of the first page
+     * @param endPageIndex index of the last page
+     * @param cancellation token checked before each page is copied
+     * @return the copied pages, in order
+     * @throws IOException if the page tree is malformed
+     * @throws SplitCancelledException if the token is cancelled
+     */
+    PDPage[] copy(PDDocument sourceDocument, int startPageIndex, int endPageIndex,
+                  CancellationToken cancellation) throws IOException, SplitCancelledException {
+        COSDictionary root = sourceDocument.getDocumentCatalog().getCOSObject().getCOSDictionary(COSName.PAGES);
+        if (root == null && locateSelectively) {
+            throw new IOException("Source document has no page tree");
+        }
+
+        PDPage[] pages = new PDPage[endPageIndex - startPageIndex + 1];
+        List<COSDictionary> located = locateSelectively ? locate(root, startPageIndex, endPageIndex) : null;
+        for (int i = startPageIndex; i <= endPageIndex; i++) {
+            cancellation.throwIfCancelled();
+            COSDictionary source = located != null 
+                ? located.get(i - startPageIndex) 
+                : sourceDocument.getPage(i).getCOSObject();
+            COSDictionary copy = copyPage(source);
+            copies.put(source, copy);
+            pages[i - startPageIndex] = new PDPage(copy);
+        }
+        // Links are fixed once every page of the section has a copy to point at
+        for (PDPage page : pages) {
+            trimAnnotations(page.getCOSObject());
+        }
+        return pages;
+    }
+
+    /**
+     * Returns the number of links and annotation references dropped because they led to pages
+     * outside the section.
+     *
+     * @return the number of references dropped
+     */
+    int getDroppedReferences() {
+        return droppedReferences;
+    }
+
+    /**
+     * Finds the page dictionaries from one 0-based index to another, both inclusive, resolving
+     * only the nodes on the way to them.
+     */
+    static List<COSDictionary> locate(COSDictionary root, int startPageIndex, int endPageIndex) throws IOException {
+        int wanted = endPageIndex - startPageIndex + 1;
+        List<COSDictionary> pages = new ArrayList<>(wanted);
+        collect(root, startPageIndex, wanted, pages, 0);
+        if (pages.size() < wanted) {
+            throw new IOException("Page " + (startPageIndex + pages.size() + 1) + " not found in the page tree");
+        }
+        return pages;
+    }
+
+    /**
+     * Adds the pages below a node to {@code pages} in order, after skipping the first
+     * {@code skip} of them, until it holds {@code wanted} pages.
+     *
+     * @return the number of pages still to be skipped after this node
+     */
+    private static int collect(COSDictionary node, int skip, int wanted, List<COSDictionary> pages, int depth)
+            throws IOException {
+        if (depth >= MAX_TREE_DEPTH) {
+            throw new IOException("Page tree deeper than " + MAX_TREE_DEPTH + " levels");
+        }
+        COSArray kids = node.getCOSArray(COSName.KIDS);
+        if (kids == null) {
+            throw new IOException("Page tree node without /Kids while looking for page " + (pages.size() + skip + 1));
+        }
+
+        for (int i = 0; i < kids.size() && pages.size() < wanted; i++) {
+            COSBase kid = kids.getObject(i);
+            if (!(kid instanceof COSDictionary)) {
+                continue;
+            }
+            COSDictionary kidDictionary = (COSDictionary) kid;
+            if (isLeaf(kidDictionary)) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    pages.add(kidDictionary);
+                }
+            } else {
+                int count = kidDictionary.getInt(COSName.COUNT, 0);
+                if (skip >= count) {
+                    // Also passes over empty intermediate nodes without descending into them
+                    skip -= count;
+                } else {
+                    skip = collect(kidDictionary, skip, wanted, pages, depth + 1);
+                }
+            }
+        }
+        return skip;
+    }
+
+    private static boolean isLeaf(COSDictionary node) {
+        // Writers sometimes omit /Type, so a node without /Kids counts as a page too
+        return COSName.PAGE.equals(node.getCOSName(COSName.TYPE)) || !node.containsKey(COSName.KIDS);
+    }
+
+    private static COSDictionary copyPage(COSDictionary source) {
+        COSDictionary copy = new COSDictionary(source);
+        for (COSName key : INHERITABLE) {
+            if (!copy.containsKey(key)) {
+                COSBase inherited = PDPageTree.getInheritableAttribute(source, key);
+                if (inherited != null) {
+                    copy.setItem(key, inherited);
+                }
+            }
+        }
+        copy.removeItem(COSName.PARENT);
+        // Article beads link to threads that span the whole document
+        copy.removeItem(COSName.B);
+        return copy;
+    }
+
+    private void trimAnnotations(COSDictionary page) {
+        COSArray annotations = page.getCOSArray(COSName.ANNOTS);
+        if (annotations == null) {
+            return;
+        }
+        COSArray trimmed = new COSArray();
+        for (int i = 0; i < annotations.size(); i++) {
+            COSBase annotation = annotations.getObject(i);
+            if (annotation instanceof COSDictionary) {
+                trimmed.add(trimAnnotation((COSDictionary) annotation, page));
+            }
+        }
+        page.setItem(COSName.ANNOTS, trimmed);
+    }
+
+    /**
+     * Returns a shallow copy of an annotation that refers to nothing outside the section. A
+     * markup annotation and its pop-up point at each other, so copies are shared through
+     * {@link #annotationCopies}.
+     */
+    private COSDictionary trimAnnotation(COSDictionary annotation, COSDictionary page) {
+        COSDictionary existing = annotationCopies.get(annotation);
+        if (existing != null) {
+            return existing;
+        }
+        COSDictionary result = new COSDictionary(annotation);
+        annotationCopies.put(annotation, result);
+
+        if (result.containsKey(COSName.P)) {
+            result.setItem(COSName.P, page);
+        }
+        COSDictionary popup = result.getCOSDictionary(COSName.POPUP);
+        if (popup != null) {
+            result.setItem(COSName.POPUP, trimAnnotation(popup, page));
+        }
+        COSDictionary parent = result.getCOSDictionary(COSName.PARENT);
+        if (parent != null) {
+            if (COSName.POPUP.equals(result.getCOSName(COSName.SUBTYPE))) {
+                result.setItem(COSName.PARENT, trimAnnotation(parent, page));
+            } else {
+                // A widget's field tree reaches the widgets on every other page, and the
+                // section has no interactive form to hold it; the widget keeps its appearance
+                result.removeItem(COSName.PARENT);
+            }
+        }
+
+        COSArray destination = result.getCOSArray(COSName.DEST);
+        if (destination != null) {
+            COSArray replacement = retarget(destination);
+            if (replacement == null) {
+                result.removeItem(COSName.DEST);
+                droppedReferences++;
+            } else {
+                result.setItem(COSName.DEST, replacement);
+            }
+        }
+
+        COSDictionary action = result.getCOSDictionary(COSName.A);
+        if (action != null && GO_TO.equals(action.getCOSName(COSName.S))) {
+            COSArray target = action.getCOSArray(COSName.D);
+            COSArray replacement = target != null ? retarget(target) : null;
+            if (target == null) {
+                // Named destination; the name resolves to nothing in the section but holds no page
+                return result;
+            }
+            if (replacement == null) {
+                result.removeItem(COSName.A);
+                droppedReferences++;
+            } else {
+                COSDictionary retargeted = new COSDictionary(action);
+                retargeted.setItem(COSName.D, replacement);
+                result.setItem(COSName.A, retargeted);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the destination unchanged when it does not name a page, a copy pointing at the
+     * section's copy of the page, or {@code null} when the page is outside the section.
+     */
+    private COSArray retarget(COSArray destination) {
+        if (destination.size() == 0 || !(destination.getObject(0) instanceof COSDictionary)) {
+            return destination;
+        }
+        COSDictionary copy = copies.get((COSDictionary) destination.getObject(0));
+        if (copy == null) {
+            return null;
+        }
+        COSArray replacement = new COSArray();
+        replacement.add(copy);
+        for (int i = 1; i < destination.size(); i++) {
+            replacement.add(destination.get(i));
+        }
+        return replacement;
+    }
+}
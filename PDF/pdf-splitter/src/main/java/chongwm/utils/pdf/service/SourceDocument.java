@@ -0,0 +1,169 @@
+package chongwm.utils.pdf.service;
+
+import chongwm.utils.pdf.metrics.SplitCounter;
+import chongwm.utils.pdf.metrics.SplitMetrics;
+import chongwm.utils.pdf.metrics.SplitPhase;
+import chongwm.utils.pdf.model.PreflightReport;
+import chongwm.utils.pdf.model.SplitConfiguration;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
+import org.apache.pdfbox.pdfparser.PDFParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * A read handle on a source PDF that is opened on first use and can be released and
+ * reopened later. Releasing drops every COS object parsed so far, which bounds the heap
+ * held by the source to what the current section needs.
+ *
+ * <p>A handle must only be used by one thread at a time.
+ */
+class SourceDocument implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SourceDocument.class);
+
+    private final PdfSource input;
+    private final StreamCacheCreateFunction streamCache;
+    private final SplitMetrics metrics;
+    private final SourceDocumentCache cache;
+    private PDDocument document;
+    private SourceDocumentCache.Lease lease;
+    private boolean repairNeeded;
+
+    SourceDocument(PdfSource input, StreamCacheCreateFunction streamCache, SplitMetrics metrics) {
+        this(input, streamCache, metrics, null);
+    }
+
+    /**
+     * Creates a handle that takes the parsed document from a cache shared between splits,
+     * and gives it back there instead of closing it.
+     *
+     * @param cache the document cache, or {@code null} to parse and close the document here
+     */
+    SourceDocument(PdfSource input, StreamCacheCreateFunction streamCache, SplitMetrics metrics,
+                   SourceDocumentCache cache) {
+        this.input = input;
+        this.streamCache = streamCache;
+        this.metrics = metrics;
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the loaded document, opening the input if necessary.
+     *
+     * @return the source document
+     * @throws IOException if the input cannot be parsed
+     */
+    PDDocument get() throws IOException {
+        if (document == null) {
+            open(this::loadLeniently);
+        }
+        return document;
+    }
+
+    /**
+     * Opens the input with a strict parser and reports its page count and encryption. The
+     * strict parser reads the header, the cross-reference data, the trailer and the page tree
+     * root and nothing else; unlike the lenient one it does not probe every cross-reference
+     * offset, and it gives up on damaged cross-reference data instead of scanning the whole
+     * file. The document stays open for {@link #get()}.
+     *
+     * <p>When the strict parser gives up, the document is opened leniently, as {@link #get()}
+     * would, and the report says that it needed repair. An input that needs a password is
+     * reported with a problem rather than thrown.
+     *
+     * @return the report, without configuration problems
+     * @throws IOException if the input cannot be parsed even leniently
+     */
+    PreflightReport preflight() throws IOException {
+        if (document == null) {
+            try {
+                open(this::loadStrictly);
+            } catch (InvalidPasswordException e) {
+                return new PreflightReport(input.toString(), input.length(), 0, SplitConfiguration.UNKNOWN_PAGE_COUNT,
+                    true, false, Collections.singletonList("Input PDF is encrypted and needs a password"));
+            }
+        }
+        return new PreflightReport(input.toString(), input.length(), document.getVersion(), 
+            document.getNumberOfPages(), document.isEncrypted(), repairNeeded, Collections.emptyList());
+    }
+
+    private void open(SourceDocumentCache.Loader loader) throws IOException {
+        if (cache != null) {
+            lease = cache.acquire(input, loader);
+            document = lease.getDocument();
+            repairNeeded = lease.isRepairNeeded();
+        } else {
+            SourceDocumentCache.Loaded loaded = loader.load();
+            document = loaded.document;
+            repairNeeded = loaded.repairNeeded;
+        }
+    }
+
+    private SourceDocumentCache.Loaded loadLeniently() throws IOException {
+        long startNanos = System.nanoTime();
+        PDDocument loaded = Loader.loadPDF(input.openRead(), streamCache);
+        recordLoad(startNanos);
+        return new SourceDocumentCache.Loaded(loaded, false);
+    }
+
+    private SourceDocumentCache.Loaded loadStrictly() throws IOException {
+        long startNanos = System.nanoTime();
+        RandomAccessRead read = input.openRead();
+        PDDocument loaded;
+        try {
+            loaded = new PDFParser(read, "", null, null, streamCache).parse(false);
+        } catch (InvalidPasswordException e) {
+            read.close();
+            throw e;
+        } catch (IOException e) {
+            read.close();
+            logger.debug("Strict parse of {} failed, opening it leniently: {}", input, e.getMessage());
+            return new SourceDocumentCache.Loaded(loadLeniently().document, true);
+        }
+        recordLoad(startNanos);
+        return new SourceDocumentCache.Loaded(loaded, false);
+    }
+
+    private void recordLoad(long startNanos) {
+        if (metrics.isEnabled()) {
+            metrics.recordTime(SplitPhase.LOAD, System.nanoTime() - startNanos);
+            metrics.increment(SplitCounter.BYTES_READ, input.length());
+        }
+    }
+
+    /**
+     * Closes the underlying document, if open, or gives it back to the cache it came from. The
+     * next call to {@link #get()} reopens it.
+     *
+     * @throws IOException if closing fails
+     */
+    void release() throws IOException {
+        if (lease != null) {
+            SourceDocumentCache.Lease toRelease = lease;
+            lease = null;
+            document = null;
+            toRelease.release();
+        } else if (document != null) {
+            PDDocument toClose = document;
+            document = null;
+            toClose.close();
+        }
+    }
+
+    PdfSource getInput() {
+        return input;
+    }
+
+    @Override
+    public void close() throws IOException {
+        release();
+    }
+}
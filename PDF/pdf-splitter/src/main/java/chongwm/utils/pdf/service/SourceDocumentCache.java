@@ -0,0 +1,267 @@
+package chongwm.utils.pdf.service;
+
+import chongwm.utils.pdf.metrics.SplitCounter;
+import chongwm.utils.pdf.metrics.SplitMetrics;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps parsed source documents open between splits, so a PDF that is split again shortly
+ * after, for example with a corrected configuration, is not parsed again. Documents are keyed
+ * by {@link PdfSource#cacheKey()}, the path, size and modification time of an input file;
+ * inputs read from streams are never cached.
+ *
+ * <p>The size of a parsed document is estimated as the size of its file, which is roughly what
+ * PDFBox holds once a split has read most objects. Least recently used documents are closed
+ * while the estimates add up to more than the budget, and a document larger than the whole
+ * budget is not cached at all. A document whose file has been changed or deleted since is
+ * closed at the next miss.
+ *
+ * <p>A PDFBox document must only be used by one thread at a time, so a cached document is
+ * handed to one {@link Lease} at a time. A document that is leased counts towards the budget
+ * but is never closed under its holder: eviction removes it from the cache and the last lease
+ * to be released closes it. A second reader of the same input while it is leased, such as an
+ * extra worker of a parallel split, gets a document of its own that is closed when released.
+ */
+class SourceDocumentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SourceDocumentCache.class);
+
+    /**
+     * Parses a source document on a cache miss.
+     */
+    @FunctionalInterface
+    interface Loader {
+
+        Loaded load() throws IOException;
+    }
+
+    /**
+     * A freshly parsed document and whether its cross-reference data had to be repaired.
+     */
+    static final class Loaded {
+
+        final PDDocument document;
+        final boolean repairNeeded;
+
+        Loaded(PDDocument document, boolean repairNeeded) {
+            this.document = document;
+            this.repairNeeded = repairNeeded;
+        }
+    }
+
+    private final long budgetBytes;
+    private final SplitMetrics metrics;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    SourceDocumentCache(long budgetBytes, SplitMetrics metrics) {
+        this.budgetBytes = budgetBytes;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns a lease on the parsed document for an input, loading it on a miss. Parsing
+     * happens outside the cache lock, so other inputs are served meanwhile.
+     *
+     * @param input the input PDF
+     * @param loader parses the input on a miss
+     * @return the lease, to be released once the document is no longer used
+     * @throws IOException if the input cannot be parsed
+     */
+    Lease acquire(PdfSource input, Loader loader) throws IOException {
+        String key = input.cacheKey();
+        if (key != null) {
+            synchronized (this) {
+                Entry entry = entries.get(key);
+                if (entry != null && entry.references == 0) {
+                    entry.references++;
+                    metrics.increment(SplitCounter.DOCUMENT_CACHE_HITS, 1);
+                    logger.debug("Reusing parsed document {}", input);
+                    return new Lease(this, entry);
+                }
+            }
+        }
+
+        metrics.increment(SplitCounter.DOCUMENT_CACHE_MISSES, 1);
+        Loaded loaded = loader.load();
+        Entry entry = new Entry(input, key, loaded);
+        entry.references = 1;
+        if (key == null || entry.bytes > budgetBytes) {
+            entry.evicted = true;
+            return new Lease(this, entry);
+        }
+
+        List<Entry> toClose;
+        synchronized (this) {
+            Entry existing = entries.get(key);
+            if (existing != null && existing.references > 0) {
+                // Another reader loaded the same input meanwhile and is still using it
+                entry.evicted = true;
+                return new Lease(this, entry);
+            }
+            if (existing != null) {
+                entries.remove(key);
+                cachedBytes -= existing.bytes;
+                existing.evicted = true;
+            }
+            entries.put(key, entry);
+            cachedBytes += entry.bytes;
+            toClose = evictIdle();
+            if (existing != null) {
+                toClose.add(existing);
+            }
+        }
+        closeAll(toClose);
+        return new Lease(this, entry);
+    }
+
+    /**
+     * Closes every cached document that is not leased. Leased documents are closed when
+     * released.
+     */
+    void clear() {
+        List<Entry> toClose = new ArrayList<>();
+        synchronized (this) {
+            for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+                Entry entry = it.next();
+                it.remove();
+                cachedBytes -= entry.bytes;
+                entry.evicted = true;
+                if (entry.references == 0) {
+                    toClose.add(entry);
+                }
+            }
+        }
+        closeAll(toClose);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    private void release(Entry entry) {
+        List<Entry> toClose;
+        synchronized (this) {
+            entry.references--;
+            if (entry.references > 0) {
+                return;
+            }
+            // Leased documents may have kept the cache over budget
+            toClose = evictIdle();
+            if (entry.evicted) {
+                toClose.add(entry);
+            }
+        }
+        closeAll(toClose);
+    }
+
+    /**
+     * Removes documents that are not leased and whose file has since been changed or deleted,
+     * such as uploads of a server, then least recently used ones until the cache fits its
+     * budget. Must be called with the lock held; the caller closes the returned entries
+     * outside of it.
+     */
+    private List<Entry> evictIdle() {
+        List<Entry> evicted = new ArrayList<>();
+        for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Entry entry = it.next().getValue();
+            if (entry.references == 0 && entry.isStale()) {
+                it.remove();
+                cachedBytes -= entry.bytes;
+                entry.evicted = true;
+                evicted.add(entry);
+            }
+        }
+        for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+             it.hasNext() && cachedBytes > budgetBytes; ) {
+            Entry entry = it.next().getValue();
+            if (entry.references == 0) {
+                it.remove();
+                cachedBytes -= entry.bytes;
+                entry.evicted = true;
+                evicted.add(entry);
+            }
+        }
+        if (!evicted.isEmpty()) {
+            metrics.increment(SplitCounter.DOCUMENT_CACHE_EVICTIONS, evicted.size());
+        }
+        return evicted;
+    }
+
+    private static void closeAll(List<Entry> toClose) {
+        for (Entry entry : toClose) {
+            try {
+                entry.loaded.document.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close cached document: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        final PdfSource input;
+        final String key;
+        final Loaded loaded;
+        final long bytes;
+        int references;
+        boolean evicted;
+
+        Entry(PdfSource input, String key, Loaded loaded) {
+            this.input = input;
+            this.key = key;
+            this.loaded = loaded;
+            this.bytes = input.length();
+        }
+
+        boolean isStale() {
+            return !key.equals(input.cacheKey());
+        }
+    }
+
+    /**
+     * Use of a parsed document until {@link #release()} is called.
+     */
+    static final class Lease {
+
+        private final SourceDocumentCache cache;
+        private final Entry entry;
+        private boolean released;
+
+        private Lease(SourceDocumentCache cache, Entry entry) {
+            this.cache = cache;
+            this.entry = entry;
+        }
+
+        PDDocument getDocument() {
+            return entry.loaded.document;
+        }
+
+        boolean isRepairNeeded() {
+            return entry.loaded.repairNeeded;
+        }
+
+        /**
+         * Gives the document back to the cache. Releasing twice has no effect.
+         */
+        void release() {
+            if (!released) {
+                released = true;
+                cache.release(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package chongwm.utils.pdf.service;
+
+import chongwm.utils.pdf.model.DocumentSection;
+import chongwm.utils.pdf.model.SectionReport;
+
+/**
+ * Receives progress of a split section by section. With several workers the callbacks arrive
+ * on the worker threads, possibly concurrently and out of configuration order, so
+ * implementations must be thread-safe. A listener should return quickly; an exception it
+ * throws fails the split with a {@link chongwm.utils.pdf.exception.PdfSplitterException}, and
+ * the outputs written so far are discarded as for a cancelled split.
+ */
+public interface SplitListener {
+
+    /** Listener that ignores all events. */
+    SplitListener NONE = new SplitListener() {
+    };
+
+    /**
+     * Called before the pages of a section are copied.
+     *
+     * @param section the section
+     * @param outputName the file path or archive entry name allocated for the section
+     */
+    default void onSectionStarted(DocumentSection section, String outputName) {
+    }
+
+    /**
+     * Called once a section has been written and its file closed.
+     *
+     * @param report the output name, bytes written and save time of the section
+     */
+    default void onSectionCompleted(SectionReport report) {
+    }
+}
@@ -0,0 +1,178 @@
+package chongwm.utils.pdf.service;
+
+import chongwm.utils.pdf.model.DocumentSection;
+import chongwm.utils.pdf.model.SplitConfiguration;
+import chongwm.utils.pdf.model.SplitOptions;
+import chongwm.utils.pdf.util.JsonReaders;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Idempotency cache that remembers which files a split produced, so replaying the same input
+ * and configuration returns the existing outputs instead of splitting again.
+ *
+ * <p>The key is a SHA-256 digest of the input PDF bytes and a JSON encoding of the sections in
+ * configuration order and the options that change the output bytes. Results are kept in a small JSON manifest,
+ * {@value #MANIFEST_NAME}, in the output directory. A hit is only reported while every recorded
+ * file still exists with the size and modification time it had when it was written.
+ */
+class SplitResultCache {
+
+    static final String MANIFEST_NAME = ".pdf-splitter-cache.json";
+
+    private static final Logger logger = LoggerFactory.getLogger(SplitResultCache.class);
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ObjectMapper objectMapper = JsonReaders.mapper();
+
+    /**
+     * Computes the cache key for a split. The input is hashed in fixed-size chunks, so the
+     * document is never read into memory as a whole.
+     *
+     * @param input the input PDF
+     * @param config the split configuration
+     * @param options the options of the splitting service
+     * @return the key as a hex string
+     * @throws IOException if the input cannot be read
+     */
+    String computeKey(PdfSource input, SplitConfiguration config, SplitOptions options) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        try (InputStream in = input.openStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        // JSON quotes and escapes every string, so no category can mimic a field boundary
+        ObjectNode normalized = objectMapper.createObjectNode();
+        normalized.put("profile", options.getSaveProfile().name())
+                  .put("prune", options.isPruneResources())
+                  .put("selective", options.isSelectiveExtraction())
+                  .put("layout", options.getOutputLayout().name());
+        ArrayNode sections = normalized.putArray("sections");
+        for (DocumentSection section : config.getDocuments()) {
+            sections.addObject()
+                    .put("category", section.getCategory())
+                    .put("start", section.getStartPage())
+                    .put("end", section.getEndPage())
+                    .put("confidence", section.getConfidence());
+        }
+        digest.update(objectMapper.writeValueAsBytes(normalized));
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Returns the outputs recorded for a key if they are all still intact.
+     *
+     * @param outputDirectory the output directory holding the manifest
+     * @param key the cache key
+     * @return the output paths in configuration order, or {@code null} on a miss
+     */
+    synchronized List<String> lookup(String outputDirectory, String key) {
+        ObjectNode manifest = readManifest(outputDirectory);
+        JsonNode entry = manifest.path("entries").get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        List<String> outputFiles = new ArrayList<>();
+        for (JsonNode file : entry.path("files")) {
+            String name = file.path("name").asText();
+            File output = new File(outputDirectory, name);
+            if (!output.isFile() || output.length() != file.path("size").asLong()
+                    || output.lastModified() != file.path("modified").asLong()) {
+                logger.info("Cached outputs in {} no longer match, splitting again", outputDirectory);
+                return null;
+            }
+            outputFiles.add(outputDirectory + File.separator + name.replace('/', File.separatorChar));
+        }
+        return outputFiles;
+    }
+
+    /**
+     * Records the outputs of a completed split. Failing to write the manifest only costs a
+     * future cache hit, so it is logged rather than thrown.
+     *
+     * @param outputDirectory the output directory holding the manifest
+     * @param key the cache key
+     * @param outputFiles the generated files
+     */
+    synchronized void record(String outputDirectory, String key, List<String> outputFiles) {
+        ObjectNode manifest = readManifest(outputDirectory);
+        ObjectNode entries = manifest.has("entries") ? (ObjectNode) manifest.get("entries") : manifest.putObject("entries");
+        ObjectNode entry = entries.putObject(key);
+        ArrayNode files = entry.putArray("files");
+        Path root = Paths.get(outputDirectory);
+        for (String outputFile : outputFiles) {
+            File output = new File(outputFile);
+            // Relative to the output directory, so sharded layouts are recorded with their shard
+            String name = root.relativize(output.toPath()).toString().replace(File.separatorChar, '/');
+            files.addObject()
+                 .put("name", name)
+                 .put("size", output.length())
+                 .put("modified", output.lastModified());
+        }
+
+        Path manifestPath = new File(outputDirectory, MANIFEST_NAME).toPath();
+        try {
+            Path temp = Files.createTempFile(manifestPath.getParent(), MANIFEST_NAME, ".tmp");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), manifest);
+            Files.move(temp, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to update result cache {}: {}", manifestPath, e.getMessage());
+        }
+    }
+
+    private ObjectNode readManifest(String outputDirectory) {
+        File manifestFile = new File(outputDirectory, MANIFEST_NAME);
+        if (manifestFile.isFile()) {
+            try {
+                JsonNode node = objectMapper.readTree(manifestFile);
+                if (node instanceof ObjectNode) {
+                    return (ObjectNode) node;
+                }
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable result cache {}: {}", manifestFile, e.getMessage());
+            }
+        }
+        ObjectNode manifest = objectMapper.createObjectNode();
+        manifest.put("version", 1);
+        return manifest;
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,209 @@
+package chongwm.utils.pdf.service;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shrinks a section document before it is saved with the compact profile: streams without a
+ * filter are Flate-encoded, and streams whose dictionaries and encoded bytes are identical are
+ * merged so each is written only once.
+ *
+ * <p>Section pages share their objects with the source document, so these changes also apply
+ * to the in-memory source. Within one split that is harmless: the data each stream decodes to
+ * is unchanged, and the source is closed when the split ends. A source that outlives the split
+ * would hand already rewritten streams to the next one, so the service never compacts a shared
+ * source: {@link chongwm.utils.pdf.model.SplitOptions#validate()} rejects the compact profile
+ * together with the document cache, and a fan-out over several configurations reloads the
+ * source for each configuration under this profile.
+ */
+class StreamCompactor {
+
+    /** Streams smaller than this are left alone; Flate overhead would outweigh the gain. */
+    private static final int MIN_RECOMPRESS_LENGTH = 64;
+
+    private final Set<COSBase> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<ByteBuffer, List<COSStream>> streamsByDigest = new HashMap<>();
+    private final MessageDigest digest;
+    private int recompressed;
+    private int merged;
+
+    StreamCompactor() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 digest not available", e);
+        }
+    }
+
+    /**
+     * Compacts every stream reachable from the document catalog.
+     *
+     * @param document the section document
+     * @throws IOException if a stream cannot be read or rewritten
+     */
+    void compact(PDDocument document) throws IOException {
+        visit(document.getDocumentCatalog().getCOSObject());
+    }
+
+    int getRecompressedCount() {
+        return recompressed;
+    }
+
+    int getMergedCount() {
+        return merged;
+    }
+
+    private void visit(COSBase base) throws IOException {
+        if (!visited.add(base)) {
+            return;
+        }
+        if (base instanceof COSDictionary) {
+            COSDictionary dictionary = (COSDictionary) base;
+            for (COSName key : new ArrayList<>(dictionary.keySet())) {
+                if (COSName.PARENT.equals(key)) {
+                    continue;
+                }
+                COSBase value = resolve(dictionary.getItem(key));
+                COSBase replacement = process(value);
+                if (replacement != value) {
+                    dictionary.setItem(key, replacement);
+                }
+            }
+        } else if (base instanceof COSArray) {
+            COSArray array = (COSArray) base;
+            for (int i = 0; i < array.size(); i++) {
+                COSBase value = resolve(array.get(i));
+                COSBase replacement = process(value);
+                if (replacement != value) {
+                    array.set(i, replacement);
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits a child value and returns the object that should replace it, which is the value
+     * itself unless it is a duplicate stream.
+     */
+    private COSBase process(COSBase value) throws IOException {
+        if (value instanceof COSStream && !visited.contains(value)) {
+            COSStream stream = (COSStream) value;
+            recompress(stream);
+            COSStream canonical = canonicalOf(stream);
+            if (canonical != stream) {
+                merged++;
+                return canonical;
+            }
+        }
+        if (value instanceof COSDictionary || value instanceof COSArray) {
+            visit(value);
+        }
+        return value;
+    }
+
+    private void recompress(COSStream stream) throws IOException {
+        if (stream.getFilters() != null || stream.getLength() < MIN_RECOMPRESS_LENGTH) {
+            return;
+        }
+        byte[] data;
+        try (InputStream in = stream.createRawInputStream()) {
+            data = in.readAllBytes();
+        }
+        try (OutputStream out = stream.createOutputStream(COSName.FLATE_DECODE)) {
+            out.write(data);
+        }
+        recompressed++;
+    }
+
+    private COSStream canonicalOf(COSStream stream) throws IOException {
+        digest.reset();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = stream.createRawInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        ByteBuffer key = ByteBuffer.wrap(digest.digest());
+
+        List<COSStream> candidates = streamsByDigest.computeIfAbsent(key, k -> new ArrayList<>(1));
+        for (COSStream candidate : candidates) {
+            if (sameDictionary(candidate, stream)) {
+                return candidate;
+            }
+        }
+        candidates.add(stream);
+        return stream;
+    }
+
+    /**
+     * Compares two stream dictionaries, ignoring /Length. Indirect values must be the same
+     * object; direct values are compared by value.
+     */
+    private boolean sameDictionary(COSDictionary first, COSDictionary second) {
+        Set<COSName> keys = first.keySet();
+        int firstSize = keys.contains(COSName.LENGTH) ? keys.size() - 1 : keys.size();
+        int secondSize = second.keySet().contains(COSName.LENGTH) ? second.size() - 1 : second.size();
+        if (firstSize != secondSize) {
+            return false;
+        }
+        for (COSName key : keys) {
+            if (!COSName.LENGTH.equals(key) && !sameValue(first.getItem(key), second.getItem(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean sameValue(COSBase first, COSBase second) {
+        COSBase a = resolve(first);
+        COSBase b = resolve(second);
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null || first instanceof COSObject || second instanceof COSObject
+                || a instanceof COSStream || b instanceof COSStream) {
+            return false;
+        }
+        if (a instanceof COSDictionary && b instanceof COSDictionary) {
+            return sameDictionary((COSDictionary) a, (COSDictionary) b);
+        }
+        if (a instanceof COSArray && b instanceof COSArray) {
+            COSArray arrayA = (COSArray) a;
+            COSArray arrayB = (COSArray) b;
+            if (arrayA.size() != arrayB.size()) {
+                return false;
+            }
+            for (int i = 0; i < arrayA.size(); i++) {
+                if (!sameValue(arrayA.get(i), arrayB.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return a.equals(b);
+    }
+
+    private COSBase resolve(COSBase base) {
+        return base instanceof COSObject ? ((COSObject) base).getObject() : base;
+    }
+}
@@ -0,0 +1,340 @@
+package chongwm.utils.pdf.service;
+
+import chongwm.utils.pdf.exception.PdfSplitterException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hot-folder front end for {@link PdfSplitterService}: splits every {@code name.pdf} dropped into
+ * a watched directory together with its sibling configuration {@code name.json}, in one resident
+ * JVM and without polling on a schedule.
+ *
+ * <p>A {@link WatchService} reports new and modified files. A pair is only picked up once both
+ * files exist and neither has changed size or modification time for the settle time, so files
+ * still being copied in are left alone. Ready pairs go through a bounded queue to a fixed number
+ * of split workers; while the queue is full they stay pending in the directory and are offered
+ * again on the next check. Sections are written to {@code <output>/<name>/}. Afterwards both
+ * inputs are moved to {@value #DONE_DIRECTORY} or {@value #FAILED_DIRECTORY} under the watched
+ * directory; a failed pair gets a {@code name.error.txt} with the reason next to it.
+ *
+ * <p>Completed and failed counts, throughput and queue depth are logged at a fixed interval.
+ */
+public class WatchFolderService {
+
+    static final String DONE_DIRECTORY = "done";
+    static final String FAILED_DIRECTORY = "failed";
+
+    private static final Logger logger = LoggerFactory.getLogger(WatchFolderService.class);
+    private static final String PDF_EXTENSION = ".pdf";
+    private static final String CONFIG_EXTENSION = ".json";
+
+    private final PdfSplitterService splitterService;
+    private final Path watchDirectory;
+    private final Path outputDirectory;
+    private final long settleMillis;
+    private final long reportIntervalMillis;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService reporter;
+    private final Thread watcherThread;
+    private final WatchService watchService;
+
+    /** Pairs seen by the watcher but not yet handed to a worker; only changed by the watcher thread. */
+    private final Map<String, PendingPair> pending = new ConcurrentHashMap<>();
+    /** Pairs queued or being split, so repeated events do not submit them twice. */
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+    private volatile boolean running;
+
+    /**
+     * Creates a watcher for the given directory. Call {@link #start()} to begin processing.
+     *
+     * @param splitterService the service shared by all splits
+     * @param watchDirectory the directory receiving PDF and configuration pairs
+     * @param outputDirectory the directory receiving one sub-directory of sections per PDF
+     * @param concurrency maximum number of splits running at once
+     * @param queueCapacity maximum number of ready pairs waiting for a worker
+     * @param settleMillis time both files of a pair must stay unchanged before it is split
+     * @param reportIntervalMillis interval between progress reports
+     * @throws IOException if the directories cannot be created or watched
+     */
+    public WatchFolderService(PdfSplitterService splitterService, Path watchDirectory, Path outputDirectory,
+                              int concurrency, int queueCapacity, long settleMillis, long reportIntervalMillis)
+            throws IOException {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Watch concurrency must be greater than 0");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Watch queue capacity must be greater than 0");
+        }
+        if (settleMillis < 0 || reportIntervalMillis < 1) {
+            throw new IllegalArgumentException("Settle time cannot be negative and report interval must be positive");
+        }
+        this.splitterService = splitterService;
+        this.watchDirectory = Files.createDirectories(watchDirectory).toAbsolutePath();
+        this.outputDirectory = Files.createDirectories(outputDirectory).toAbsolutePath();
+        this.settleMillis = settleMillis;
+        this.reportIntervalMillis = reportIntervalMillis;
+        Files.createDirectories(this.watchDirectory.resolve(DONE_DIRECTORY));
+        Files.createDirectories(this.watchDirectory.resolve(FAILED_DIRECTORY));
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "pdf-splitter-watch-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        this.reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pdf-splitter-watch-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.watchService = this.watchDirectory.getFileSystem().newWatchService();
+        this.watchDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                     StandardWatchEventKinds.ENTRY_MODIFY);
+        this.watcherThread = new Thread(this::watch, "pdf-splitter-watcher");
+        this.watcherThread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        watcherThread.start();
+        reporter.scheduleAtFixedRate(this::report, reportIntervalMillis, reportIntervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Watching {} for PDF and configuration pairs (output {}, concurrency {}, queue {})",
+                   watchDirectory, outputDirectory, workers.getMaximumPoolSize(),
+                   workers.getQueue().remainingCapacity());
+    }
+
+    /**
+     * Stops watching and waits up to the given time for queued and running splits to finish.
+     *
+     * @param timeoutSeconds maximum time to wait
+     */
+    public void stop(int timeoutSeconds) {
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close watch service: {}", e.getMessage());
+        }
+        watcherThread.interrupt();
+        reporter.shutdownNow();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+        report();
+        logger.info("Stopped watching {}", watchDirectory);
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public int getQueueDepth() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * Watcher loop: collects events, then checks the pending pairs at least every half settle
+     * time so a pair becomes ready even when no further event arrives.
+     */
+    private void watch() {
+        long checkMillis = Math.max(50, settleMillis / 2);
+        scanDirectory();
+        try {
+            while (running) {
+                WatchKey key = watchService.poll(checkMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            scanDirectory();
+                        } else {
+                            notice(((Path) event.context()).toString());
+                        }
+                    }
+                    if (!key.reset()) {
+                        logger.error("Watched directory {} is no longer accessible", watchDirectory);
+                        running = false;
+                    }
+                }
+                submitReadyPairs();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // stop() was called
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Picks up pairs already in the directory at start-up or after events were lost.
+     */
+    private void scanDirectory() {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(watchDirectory, "*" + PDF_EXTENSION)) {
+            for (Path entry : entries) {
+                notice(entry.getFileName().toString());
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to scan {}: {}", watchDirectory, e.getMessage());
+        }
+    }
+
+    private void notice(String fileName) {
+        String baseName;
+        if (fileName.endsWith(PDF_EXTENSION)) {
+            baseName = fileName.substring(0, fileName.length() - PDF_EXTENSION.length());
+        } else if (fileName.endsWith(CONFIG_EXTENSION)) {
+            baseName = fileName.substring(0, fileName.length() - CONFIG_EXTENSION.length());
+        } else {
+            return;
+        }
+        if (!baseName.isEmpty() && !inFlight.contains(baseName)) {
+            pending.computeIfAbsent(baseName, name -> new PendingPair());
+        }
+    }
+
+    /**
+     * Hands every pair whose files have settled to the workers, keeping it pending when the
+     * queue is full.
+     */
+    private void submitReadyPairs() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, PendingPair>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, PendingPair> entry = iterator.next();
+            String baseName = entry.getKey();
+            Path pdf = watchDirectory.resolve(baseName + PDF_EXTENSION);
+            Path config = watchDirectory.resolve(baseName + CONFIG_EXTENSION);
+            String state = fileState(pdf) + "|" + fileState(config);
+            if (state.contains("missing")) {
+                // Waiting for the sibling, or the pair was removed again
+                if (!Files.exists(pdf) && !Files.exists(config)) {
+                    iterator.remove();
+                }
+                continue;
+            }
+
+            PendingPair pair = entry.getValue();
+            if (!state.equals(pair.state)) {
+                pair.state = state;
+                pair.changedNanos = now;
+                continue;
+            }
+            if (now - pair.changedNanos < TimeUnit.MILLISECONDS.toNanos(settleMillis)) {
+                continue;
+            }
+
+            inFlight.add(baseName);
+            try {
+                workers.execute(() -> process(baseName, pdf, config));
+                iterator.remove();
+            } catch (RejectedExecutionException e) {
+                // Queue full or shutting down; the pair stays pending and is offered again later
+                inFlight.remove(baseName);
+                return;
+            }
+        }
+    }
+
+    private String fileState(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.size() + "@" + attributes.lastModifiedTime().toMillis();
+        } catch (NoSuchFileException e) {
+            return "missing";
+        } catch (IOException e) {
+            return "unreadable";
+        }
+    }
+
+    /**
+     * Splits one pair and moves it to the done or failed directory. Never throws.
+     */
+    private void process(String baseName, Path pdf, Path config) {
+        long itemStartNanos = System.nanoTime();
+        try {
+            List<String> outputFiles = splitterService.splitPdf(pdf.toString(), config.toString(),
+                                                                outputDirectory.resolve(baseName).toString());
+            moveInputs(pdf, config, DONE_DIRECTORY);
+            completed.incrementAndGet();
+            logger.info("Split {} into {} files in {} ms", pdf.getFileName(), outputFiles.size(),
+                       (System.nanoTime() - itemStartNanos) / 1_000_000);
+        } catch (PdfSplitterException | IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            logger.error("Failed to split {}: {}", pdf.getFileName(), e.getMessage(), e);
+            try {
+                moveInputs(pdf, config, FAILED_DIRECTORY);
+                Files.write(watchDirectory.resolve(FAILED_DIRECTORY).resolve(baseName + ".error.txt"),
+                            String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+            } catch (IOException moveFailure) {
+                logger.error("Failed to move {} to {}: {}", pdf.getFileName(), FAILED_DIRECTORY,
+                            moveFailure.getMessage());
+            }
+        } finally {
+            inFlight.remove(baseName);
+        }
+    }
+
+    private void moveInputs(Path pdf, Path config, String directory) throws IOException {
+        Path target = watchDirectory.resolve(directory);
+        Files.move(pdf, target.resolve(pdf.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(config, target.resolve(config.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void report() {
+        double elapsedMinutes = (System.nanoTime() - startNanos) / 60e9;
+        long done = completed.get();
+        logger.info("Watch status: {} completed, {} failed, {} running, {} queued, {} pending, {} PDFs/min",
+                   done, failed.get(), workers.getActiveCount(), workers.getQueue().size(),
+                   pending.size(), String.format("%.2f", elapsedMinutes > 0 ? done / elapsedMinutes : 0.0));
+    }
+
+    /**
+     * Last observed state of a pair and when it last changed.
+     */
+    private static final class PendingPair {
+        private String state = "";
+        private long changedNanos;
+    }
+}
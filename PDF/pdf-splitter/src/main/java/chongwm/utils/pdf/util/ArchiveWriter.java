@@ -0,0 +1,193 @@
+package chongwm.utils.pdf.util;
+
+import chongwm.utils.pdf.model.ArchiveFormat;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes split sections as entries of a single archive stream.
+ *
+ * <p>Entries are written one at a time: call {@link #beginEntry(String)}, write the entry data
+ * to the returned stream, then call {@link #endEntry()}. {@link #finish()} writes the archive
+ * trailer but leaves the underlying stream open.
+ */
+public abstract class ArchiveWriter {
+
+    /**
+     * Creates a writer for the given format.
+     *
+     * @param format the archive format
+     * @param out the stream receiving the archive
+     * @return a new archive writer
+     */
+    public static ArchiveWriter create(ArchiveFormat format, OutputStream out) {
+        return format == ArchiveFormat.TAR ? new TarWriter(out) : new ZipWriter(out);
+    }
+
+    /**
+     * Starts a new entry. Closing the returned stream does not close the archive.
+     *
+     * @param name the entry name
+     * @return the stream to write the entry data to
+     * @throws IOException if the entry cannot be started
+     */
+    public abstract OutputStream beginEntry(String name) throws IOException;
+
+    /**
+     * Completes the current entry.
+     *
+     * @throws IOException if the entry cannot be written
+     */
+    public abstract void endEntry() throws IOException;
+
+    /**
+     * Writes the archive trailer and flushes the underlying stream.
+     *
+     * @throws IOException if writing fails
+     */
+    public abstract void finish() throws IOException;
+
+    /**
+     * ZIP entries are deflated as they are written, so no entry is ever buffered.
+     */
+    private static final class ZipWriter extends ArchiveWriter {
+
+        private final ZipOutputStream zip;
+
+        ZipWriter(OutputStream out) {
+            this.zip = new ZipOutputStream(CloseShieldOutputStream.wrap(out));
+            // PDF content streams are already compressed; trade a little size for speed
+            this.zip.setLevel(Deflater.BEST_SPEED);
+        }
+
+        @Override
+        public OutputStream beginEntry(String name) throws IOException {
+            zip.putNextEntry(new ZipEntry(name));
+            return CloseShieldOutputStream.wrap(zip);
+        }
+
+        @Override
+        public void endEntry() throws IOException {
+            zip.closeEntry();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            zip.finish();
+            zip.flush();
+        }
+    }
+
+    /**
+     * POSIX ustar writer. A tar header carries the entry size, so each entry is held in memory
+     * until it is complete; names longer than 100 bytes use a PAX extended header.
+     */
+    private static final class TarWriter extends ArchiveWriter {
+
+        private static final int BLOCK_SIZE = 512;
+
+        private final OutputStream out;
+        private ByteArrayOutputStream currentEntry;
+        private String currentName;
+
+        TarWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public OutputStream beginEntry(String name) {
+            currentName = name;
+            currentEntry = new ByteArrayOutputStream();
+            return currentEntry;
+        }
+
+        @Override
+        public void endEntry() throws IOException {
+            byte[] data = currentEntry.toByteArray();
+            byte[] nameBytes = currentName.getBytes(StandardCharsets.UTF_8);
+            long mtime = System.currentTimeMillis() / 1000;
+
+            if (nameBytes.length > 100) {
+                byte[] pax = paxRecord("path", currentName);
+                writeHeader("PaxHeader/" + truncate(currentName, 80), pax.length, mtime, 'x');
+                writeData(pax);
+            }
+            writeHeader(currentName, data.length, mtime, '0');
+            writeData(data);
+
+            currentEntry = null;
+            currentName = null;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.write(new byte[2 * BLOCK_SIZE]);
+            out.flush();
+        }
+
+        private void writeHeader(String name, long size, long mtime, char type) throws IOException {
+            byte[] header = new byte[BLOCK_SIZE];
+            put(header, 0, 100, truncate(name, 100).getBytes(StandardCharsets.UTF_8));
+            putOctal(header, 100, 8, 0644);
+            putOctal(header, 108, 8, 0);
+            putOctal(header, 116, 8, 0);
+            putOctal(header, 124, 12, size);
+            putOctal(header, 136, 12, mtime);
+            header[156] = (byte) type;
+            put(header, 257, 6, "ustar\0".getBytes(StandardCharsets.US_ASCII));
+            put(header, 263, 2, "00".getBytes(StandardCharsets.US_ASCII));
+
+            // Checksum is computed with the checksum field itself filled with spaces
+            for (int i = 148; i < 156; i++) {
+                header[i] = ' ';
+            }
+            long checksum = 0;
+            for (byte b : header) {
+                checksum += b & 0xff;
+            }
+            put(header, 148, 8, String.format("%06o\0 ", checksum).getBytes(StandardCharsets.US_ASCII));
+            out.write(header);
+        }
+
+        private void writeData(byte[] data) throws IOException {
+            out.write(data);
+            int padding = (BLOCK_SIZE - data.length % BLOCK_SIZE) % BLOCK_SIZE;
+            out.write(new byte[padding]);
+        }
+
+        private byte[] paxRecord(String key, String value) {
+            // The record length prefix counts its own digits
+            String body = " " + key + "=" + value + "\n";
+            int bodyLength = body.getBytes(StandardCharsets.UTF_8).length;
+            int length = bodyLength + String.valueOf(bodyLength).length();
+            if (String.valueOf(length).length() > String.valueOf(bodyLength).length()) {
+                length++;
+            }
+            return (length + body).getBytes(StandardCharsets.UTF_8);
+        }
+
+        private String truncate(String name, int maxBytes) {
+            String truncated = name;
+            while (truncated.getBytes(StandardCharsets.UTF_8).length > maxBytes) {
+                truncated = truncated.substring(0, truncated.length() - 1);
+            }
+            return truncated;
+        }
+
+        private void put(byte[] header, int offset, int length, byte[] value) {
+            System.arraycopy(value, 0, header, offset, Math.min(length, value.length));
+        }
+
+        private void putOctal(byte[] header, int offset, int length, long value) {
+            String octal = String.format("%0" + (length - 1) + "o", value);
+            put(header, offset, length, (octal + "\0").getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package chongwm.utils.pdf.util;
+
+import chongwm.utils.pdf.exception.InvalidConfigurationException;
+import chongwm.utils.pdf.model.BatchItem;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for reading batch manifests.
+ *
+ * <p>Two formats are supported:
+ * <ul>
+ *   <li>CSV with three columns {@code input,config,output}. A header row using those names is
+ *       skipped, and fields may be double-quoted.</li>
+ *   <li>NDJSON with one object per line: {@code {"input": ..., "config": ..., "output": ...}}.</li>
+ * </ul>
+ * Blank lines and lines starting with {@code #} are ignored. The format is taken from the file
+ * extension ({@code .csv}, {@code .ndjson}, {@code .jsonl}) or, failing that, from the first entry.
+ */
+public class BatchManifestReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchManifestReader.class);
+    private final ObjectMapper objectMapper;
+
+    public BatchManifestReader() {
+        this.objectMapper = JsonReaders.mapper();
+    }
+
+    /**
+     * Reads all entries of a batch manifest.
+     *
+     * @param manifestPath path to the manifest file
+     * @return the manifest entries in file order
+     * @throws InvalidConfigurationException if the manifest cannot be read or an entry is invalid
+     */
+    public List<BatchItem> readManifest(String manifestPath) throws InvalidConfigurationException {
+        logger.info("Reading batch manifest from: {}", manifestPath);
+
+        File manifestFile = new File(manifestPath);
+        if (!manifestFile.exists()) {
+            throw new InvalidConfigurationException("Manifest file does not exist: " + manifestPath);
+        }
+        if (!manifestFile.canRead()) {
+            throw new InvalidConfigurationException("Cannot read manifest file: " + manifestPath);
+        }
+
+        String lowerName = manifestFile.getName().toLowerCase();
+        Boolean json = lowerName.endsWith(".csv") ? Boolean.FALSE
+                : lowerName.endsWith(".ndjson") || lowerName.endsWith(".jsonl") ? Boolean.TRUE
+                : null;
+
+        List<BatchItem> items = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                if (json == null) {
+                    json = trimmed.startsWith("{");
+                }
+
+                BatchItem item = json ? parseJsonLine(trimmed, lineNumber) : parseCsvLine(trimmed, lineNumber);
+                if (item != null) {
+                    items.add(item);
+                }
+            }
+        } catch (IOException e) {
+            throw new InvalidConfigurationException("Failed to read manifest: " + e.getMessage(), e);
+        }
+
+        logger.info("Read {} batch entries", items.size());
+        return items;
+    }
+
+    private BatchItem parseJsonLine(String line, int lineNumber) throws InvalidConfigurationException {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new InvalidConfigurationException(
+                String.format("Invalid JSON on manifest line %d: %s", lineNumber, e.getMessage()), e);
+        }
+        return createItem(lineNumber, text(node, "input"), text(node, "config"), text(node, "output"));
+    }
+
+    private String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private BatchItem parseCsvLine(String line, int lineNumber) throws InvalidConfigurationException {
+        List<String> fields = splitCsv(line, lineNumber);
+        if (fields.size() != 3) {
+            throw new InvalidConfigurationException(
+                String.format("Manifest line %d must have 3 columns (input,config,output) but has %d",
+                              lineNumber, fields.size()));
+        }
+        if ("input".equalsIgnoreCase(fields.get(0)) && "config".equalsIgnoreCase(fields.get(1))
+                && "output".equalsIgnoreCase(fields.get(2))) {
+            return null; // header row
+        }
+        return createItem(lineNumber, fields.get(0), fields.get(1), fields.get(2));
+    }
+
+    private List<String> splitCsv(String line, int lineNumber) throws InvalidConfigurationException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new InvalidConfigurationException("Unterminated quote on manifest line " + lineNumber);
+        }
+        fields.add(current.toString().trim());
+        return fields;
+    }
+
+    private BatchItem createItem(int lineNumber, String input, String config, String output)
+            throws InvalidConfigurationException {
+        if (isBlank(input) || isBlank(config) || isBlank(output)) {
+            throw new InvalidConfigurationException(
+                String.format("Manifest line %d must specify input, config and output", lineNumber));
+        }
+        return new BatchItem(lineNumber, input, config, output);
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -1,13 +1,17 @@
 package chongwm.utils.pdf.util;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
 import chongwm.utils.pdf.exception.InvalidConfigurationException;
+import chongwm.utils.pdf.model.DocumentSection;
 import chongwm.utils.pdf.model.SplitConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Utility class for reading JSON configuration files.
@@ -15,14 +19,15 @@ import java.io.IOException;
 public class JsonConfigurationReader {
     
     private static final Logger logger = LoggerFactory.getLogger(JsonConfigurationReader.class);
-    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
 
     public JsonConfigurationReader() {
-        this.objectMapper = new ObjectMapper();
+        this.jsonFactory = JsonReaders.mapper().getFactory();
     }
 
     /**
-     * Reads and parses a JSON configuration file.
+     * Reads and parses a JSON configuration file. Sections are validated while they are
+     * parsed, so an invalid file is rejected at its first bad section.
      * 
      * @param configFilePath path to the JSON configuration file
      * @return parsed SplitConfiguration
@@ -31,6 +36,37 @@ public class JsonConfigurationReader {
     public SplitConfiguration readConfiguration(String configFilePath) throws InvalidConfigurationException {
         logger.info("Reading configuration from: {}", configFilePath);
         
+        try (SectionStreamReader sections = openSections(configFilePath)) {
+            return collect(sections);
+        } catch (IOException e) {
+            throw new InvalidConfigurationException("Failed to close configuration file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads and parses a JSON configuration from a stream, e.g. an uploaded request body.
+     * 
+     * @param inputStream stream containing the JSON configuration
+     * @return parsed SplitConfiguration
+     * @throws InvalidConfigurationException if the configuration is invalid
+     */
+    public SplitConfiguration readConfiguration(InputStream inputStream) throws InvalidConfigurationException {
+        try (SectionStreamReader sections = openSections(inputStream)) {
+            return collect(sections);
+        } catch (IOException e) {
+            throw new InvalidConfigurationException("Failed to close configuration stream: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Opens a JSON configuration file for reading one section at a time.
+     * 
+     * @param configFilePath path to the JSON configuration file
+     * @return a reader positioned before the first section; the caller must close it
+     * @throws InvalidConfigurationException if the file cannot be opened or does not start
+     *                                       like a configuration
+     */
+    public SectionStreamReader openSections(String configFilePath) throws InvalidConfigurationException {
         File configFile = new File(configFilePath);
         if (!configFile.exists()) {
             throw new InvalidConfigurationException("Configuration file does not exist: " + configFilePath);
@@ -41,17 +77,36 @@ public class JsonConfigurationReader {
         }
         
         try {
-            SplitConfiguration config = objectMapper.readValue(configFile, SplitConfiguration.class);
-            config.validate();
-            
-            logger.info("Successfully read configuration with {} document sections", 
-                       config.getDocuments().size());
-            return config;
-            
+            return new SectionStreamReader(jsonFactory.createParser(configFile));
+        } catch (IOException e) {
+            throw new InvalidConfigurationException("Failed to open JSON configuration: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Opens a JSON configuration stream for reading one section at a time. Closing the reader
+     * closes the stream.
+     * 
+     * @param inputStream stream containing the JSON configuration
+     * @return a reader positioned before the first section; the caller must close it
+     * @throws InvalidConfigurationException if the stream does not start like a configuration
+     */
+    public SectionStreamReader openSections(InputStream inputStream) throws InvalidConfigurationException {
+        try {
+            return new SectionStreamReader(jsonFactory.createParser(inputStream));
         } catch (IOException e) {
-            throw new InvalidConfigurationException("Failed to parse JSON configuration: " + e.getMessage(), e);
-        } catch (IllegalArgumentException e) {
-            throw new InvalidConfigurationException("Invalid configuration: " + e.getMessage(), e);
+            throw new InvalidConfigurationException("Failed to open JSON configuration: " + e.getMessage(), e);
         }
     }
+
+    private SplitConfiguration collect(SectionStreamReader sections) throws InvalidConfigurationException {
+        List<DocumentSection> documents = new ArrayList<>();
+        DocumentSection section;
+        while ((section = sections.nextSection()) != null) {
+            documents.add(section);
+        }
+        
+        logger.info("Successfully read configuration with {} document sections", documents.size());
+        return new SplitConfiguration(documents);
+    }
 }
@@ -0,0 +1,65 @@
+package chongwm.utils.pdf.util;
+
+import chongwm.utils.pdf.model.DocumentSection;
+import chongwm.utils.pdf.model.SplitConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+/**
+ * Process-wide Jackson mapper and pre-built readers for the configuration types.
+ *
+ * <p>Building an {@link ObjectMapper} and letting it discover the deserializers for a type is
+ * far more expensive than reading a small configuration, so every reader in the application
+ * shares the instances held here. {@link ObjectReader}s are immutable and the mapper is never
+ * reconfigured after construction, so all of them are safe to use from any thread.
+ *
+ * <p>The Blackbird module is registered by default, replacing reflective field and setter
+ * access with generated lambdas. Start the JVM with {@code -D}{@value #BLACKBIRD_PROPERTY}
+ * {@code =false} to fall back to plain reflection.
+ */
+public final class JsonReaders {
+
+    /** System property that disables the Blackbird module when set to {@code false}. */
+    public static final String BLACKBIRD_PROPERTY = "pdf.splitter.jackson.blackbird";
+
+    private static final ObjectMapper MAPPER =
+        createMapper(!"false".equalsIgnoreCase(System.getProperty(BLACKBIRD_PROPERTY)));
+    private static final ObjectReader SPLIT_CONFIGURATION = MAPPER.readerFor(SplitConfiguration.class);
+    private static final ObjectReader DOCUMENT_SECTION = MAPPER.readerFor(DocumentSection.class);
+
+    private JsonReaders() {
+    }
+
+    /**
+     * Returns the shared mapper. Callers must not change its configuration.
+     *
+     * @return the shared mapper
+     */
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    public static ObjectReader splitConfiguration() {
+        return SPLIT_CONFIGURATION;
+    }
+
+    public static ObjectReader documentSection() {
+        return DOCUMENT_SECTION;
+    }
+
+    /**
+     * Creates a mapper configured like the shared one. Only needed to compare configurations,
+     * e.g. in benchmarks.
+     *
+     * @param blackbird whether to register the Blackbird module
+     * @return a new mapper
+     */
+    public static ObjectMapper createMapper(boolean blackbird) {
+        ObjectMapper mapper = new ObjectMapper();
+        if (blackbird) {
+            mapper.registerModule(new BlackbirdModule());
+        }
+        return mapper;
+    }
+}
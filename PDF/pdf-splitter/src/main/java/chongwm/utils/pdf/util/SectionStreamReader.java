@@ -0,0 +1,188 @@
+package chongwm.utils.pdf.util;
+
+import chongwm.utils.pdf.exception.InvalidConfigurationException;
+import chongwm.utils.pdf.model.DocumentSection;
+import chongwm.utils.pdf.model.SectionRangeIndex;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the sections of a JSON configuration one at a time with the Jackson token API, so only
+ * the current section is ever materialized. Each section is validated as soon as it is parsed,
+ * including against the sections before it, and reading stops at the first bad record.
+ *
+ * <p>As an {@link Iterator}, sections can be fed straight into
+ * {@code PdfSplitterService#splitPdfWithSections} while the rest of the file is still unread.
+ * The iterator cannot throw checked exceptions, so it reports a bad record as an
+ * {@link IllegalArgumentException} whose cause is the {@link InvalidConfigurationException};
+ * {@link #nextSection()} throws the latter directly.
+ *
+ * <p>Instances are created by {@link JsonConfigurationReader#openSections(String)} and must be
+ * closed.
+ */
+public class SectionStreamReader implements Iterator<DocumentSection>, Closeable {
+
+    private final JsonParser parser;
+    private final SectionRangeIndex ranges = new SectionRangeIndex();
+    private DocumentSection lookahead;
+    private boolean finished;
+
+    SectionStreamReader(JsonParser parser) throws InvalidConfigurationException {
+        this.parser = parser;
+        try {
+            positionAtDocuments();
+        } catch (IOException e) {
+            closeQuietly();
+            throw new InvalidConfigurationException("Failed to parse JSON configuration: " + e.getMessage(), e);
+        } catch (InvalidConfigurationException e) {
+            closeQuietly();
+            throw e;
+        }
+    }
+
+    /**
+     * Parses and validates the next section.
+     *
+     * @return the next section, or {@code null} after the last one
+     * @throws InvalidConfigurationException if the section or the JSON around it is invalid
+     */
+    public DocumentSection nextSection() throws InvalidConfigurationException {
+        if (lookahead != null) {
+            DocumentSection section = lookahead;
+            lookahead = null;
+            return section;
+        }
+        if (finished) {
+            return null;
+        }
+
+        try {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY) {
+                finishDocument();
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw invalid("Expected a document section object");
+            }
+
+            int number = ranges.size() + 1;
+            JsonLocation location = parser.currentLocation();
+            DocumentSection section = JsonReaders.documentSection().readValue(parser);
+            try {
+                section.validate();
+                ranges.add(section);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidConfigurationException(String.format(
+                    "Invalid configuration: section %d (line %d): %s", number, location.getLineNr(), e.getMessage()), e);
+            }
+            return section;
+
+        } catch (IOException e) {
+            finished = true;
+            throw new InvalidConfigurationException("Failed to parse JSON configuration: " + e.getMessage(), e);
+        } catch (InvalidConfigurationException e) {
+            finished = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of sections read so far.
+     *
+     * @return the section count
+     */
+    public int getSectionCount() {
+        return ranges.size();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (lookahead == null && !finished) {
+            lookahead = nextUnchecked();
+        }
+        return lookahead != null;
+    }
+
+    @Override
+    public DocumentSection next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        DocumentSection section = lookahead;
+        lookahead = null;
+        return section;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    private DocumentSection nextUnchecked() {
+        try {
+            return nextSection();
+        } catch (InvalidConfigurationException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Advances to the first element of the top-level {@code documents} array.
+     */
+    private void positionAtDocuments() throws IOException, InvalidConfigurationException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw invalid("Configuration must be a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!"documents".equals(field)) {
+                throw invalid("Unrecognized field \"" + field + "\"");
+            }
+            if (value == JsonToken.START_ARRAY) {
+                return;
+            }
+            if (value != JsonToken.VALUE_NULL) {
+                throw invalid("\"documents\" must be an array");
+            }
+        }
+        throw new InvalidConfigurationException("Invalid configuration: Documents list cannot be null or empty");
+    }
+
+    /**
+     * Checks what follows the {@code documents} array once every section has been read.
+     */
+    private void finishDocument() throws IOException, InvalidConfigurationException {
+        finished = true;
+        if (ranges.size() == 0) {
+            throw new InvalidConfigurationException("Invalid configuration: Documents list cannot be null or empty");
+        }
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.FIELD_NAME) {
+            throw invalid("Unrecognized field \"" + parser.currentName() + "\"");
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw invalid("Expected end of configuration object");
+        }
+    }
+
+    private InvalidConfigurationException invalid(String message) {
+        return new InvalidConfigurationException(String.format(
+            "Failed to parse JSON configuration: %s at line %d", message, parser.currentLocation().getLineNr()));
+    }
+
+    private void closeQuietly() {
+        try {
+            parser.close();
+        } catch (IOException e) {
+            // Already failing
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package chongwm.utils.pdf;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Builds the small inputs shared by the batch, watch folder and server tests: a PDF of blank
+ * pages and a configuration splitting it into an invoice and a receipt.
+ */
+public final class TestDocuments {
+
+    /** Page count of the PDF built by {@link #pdfBytes()}. */
+    public static final int PAGES = 3;
+
+    /** Configuration with page 1 as {@code invoice_95.pdf} and pages 2-3 as {@code receipt_88.pdf}. */
+    public static final String INVOICE_AND_RECEIPT = invoiceAndReceipt(PAGES);
+
+    private TestDocuments() {
+    }
+
+    /**
+     * Returns a PDF of {@link #PAGES} blank pages.
+     *
+     * @return the PDF bytes
+     * @throws IOException if the PDF cannot be built
+     */
+    public static byte[] pdfBytes() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < PAGES; i++) {
+                document.addPage(new PDPage());
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Writes the PDF of {@link #pdfBytes()} to a file.
+     *
+     * @param path the file to write
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    public static Path writePdf(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        return Files.write(path, pdfBytes());
+    }
+
+    /**
+     * Returns the invoice and receipt configuration with the receipt ending at the given page,
+     * which makes the configuration fail when past {@link #PAGES}.
+     *
+     * @param receiptEndPage the last page of the receipt
+     * @return the configuration JSON
+     */
+    public static String invoiceAndReceipt(int receiptEndPage) {
+        return "{\"documents\": [" +
+            "{\"category\": \"invoice\", \"start_page\": 1, \"end_page\": 1, \"confidence\": 95}," +
+            "{\"category\": \"receipt\", \"start_page\": 2, \"end_page\": " + receiptEndPage +
+            ", \"confidence\": 88}]}";
+    }
+
+    /**
+     * Writes a configuration to a file.
+     *
+     * @param path the file to write
+     * @param json the configuration JSON
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    public static Path writeConfig(Path path, String json) throws IOException {
+        Files.createDirectories(path.getParent());
+        return Files.write(path, json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,72 @@
+package chongwm.utils.pdf.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SplitConfigurationTest {
+
+    @Test
+    void testAllOverlappingPairsAreReported() {
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("c", 5, 8, 90),
+            new DocumentSection("a", 1, 3, 90),
+            new DocumentSection("b", 3, 5, 90),
+            new DocumentSection("d", 10, 12, 90)
+        ));
+
+        List<String> problems = config.findRangeProblems(SplitConfiguration.UNKNOWN_PAGE_COUNT);
+        assertEquals(2, problems.size());
+        assertTrue(problems.get(0).contains("category='a'") && problems.get(0).contains("category='b'"));
+        assertTrue(problems.get(1).contains("category='b'") && problems.get(1).contains("category='c'"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, config::validate);
+        assertTrue(e.getMessage().startsWith("2 page range problems"));
+    }
+
+    @Test
+    void testSectionsPastDocumentEndAreReported() {
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("a", 1, 4, 90),
+            new DocumentSection("b", 5, 9, 90),
+            new DocumentSection("c", 10, 11, 90)
+        ));
+
+        config.validate();
+        assertEquals(2, config.findRangeProblems(6).size());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> config.validate(6));
+        assertTrue(e.getMessage().contains("End page 9 exceeds document page count 6"));
+    }
+
+    @Test
+    void testLargeConfigurationValidates() {
+        List<DocumentSection> sections = new ArrayList<>();
+        for (int page = 50_000; page >= 1; page--) {
+            sections.add(new DocumentSection("page", page, page, 90));
+        }
+        SplitConfiguration config = new SplitConfiguration(sections);
+
+        assertDoesNotThrow(() -> config.validate(50_000));
+        assertEquals(1, config.findRangeProblems(49_999).size());
+    }
+
+    @Test
+    void testHeavilyOverlappingConfigurationIsRejectedQuickly() {
+        List<DocumentSection> sections = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            sections.add(new DocumentSection("all", 1, 100_000, 90));
+        }
+        SplitConfiguration config = new SplitConfiguration(sections);
+
+        // Five billion overlapping pairs are counted, but only the first few are described
+        IllegalArgumentException e = assertTimeoutPreemptively(Duration.ofSeconds(10), 
+            () -> assertThrows(IllegalArgumentException.class, () -> config.validate(100_000)));
+        assertTrue(e.getMessage().startsWith("4999950000 page range problems: "), e.getMessage());
+        assertTrue(e.getMessage().endsWith("; ... and 4999949950 more"));
+    }
+}
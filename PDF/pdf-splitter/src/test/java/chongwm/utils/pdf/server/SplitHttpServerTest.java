@@ -0,0 +1,176 @@
+package chongwm.utils.pdf.server;
+
+import chongwm.utils.pdf.TestDocuments;
+import chongwm.utils.pdf.exception.PdfSplitterException;
+import chongwm.utils.pdf.model.SplitConfiguration;
+import chongwm.utils.pdf.service.PdfSplitterService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SplitHttpServerTest {
+
+    private static final String BOUNDARY = "----splitter-test-boundary";
+    private static final String CONFIG = TestDocuments.INVOICE_AND_RECEIPT;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private SplitHttpServer server;
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.stop(5);
+        }
+    }
+
+    @Test
+    void testSplitReturnsOutputPaths() throws Exception {
+        startServer(new PdfSplitterService(), 2, 4);
+        Path outputDir = tempDir.resolve("outputs").resolve("out");
+
+        HttpResponse<String> response = client.send(splitRequest("?output=out", CONFIG),
+            HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("invoice_95.pdf"));
+        assertTrue(outputDir.resolve("receipt_88.pdf").toFile().exists());
+    }
+
+    @Test
+    void testOutputOutsideRootIsRefused() throws Exception {
+        startServer(new PdfSplitterService(), 1, 4);
+        String outside = tempDir.resolve("elsewhere").toString().replace('\\', '/');
+        Files.createSymbolicLink(tempDir.resolve("outputs").resolve("link"), 
+                                 Files.createDirectories(tempDir.resolve("linked")));
+
+        for (String output : List.of(outside, "../elsewhere", "nested/../../elsewhere", "link/out")) {
+            HttpResponse<String> response = client.send(
+                splitRequest("?output=" + URLEncoder.encode(output, StandardCharsets.UTF_8), CONFIG),
+                HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode(), output);
+        }
+        assertFalse(tempDir.resolve("elsewhere").toFile().exists());
+        assertFalse(tempDir.resolve("linked").resolve("out").toFile().exists());
+
+        // Without an output root no client may choose the output directory at all
+        server.stop(5);
+        server = new SplitHttpServer(new PdfSplitterService(), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+            1, 4, tempDir.resolve("work").toString());
+        server.start();
+        HttpResponse<String> response = client.send(splitRequest("?output=out", CONFIG),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    void testSplitStreamsZip() throws Exception {
+        startServer(new PdfSplitterService(), 2, 4);
+
+        HttpResponse<byte[]> response = client.send(splitRequest("?format=zip", CONFIG),
+            HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(response.body()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.add(entry.getName());
+            }
+        }
+        assertEquals(List.of("invoice_95.pdf", "receipt_88.pdf"), entries);
+    }
+
+    @Test
+    void testInvalidConfigurationIsBadRequest() throws Exception {
+        startServer(new PdfSplitterService(), 1, 1);
+
+        HttpResponse<String> response = client.send(splitRequest("", "{\"documents\": []}"),
+            HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    void testFullQueueIsRejected() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PdfSplitterService blockingService = new PdfSplitterService() {
+            @Override
+            public List<String> splitPdfWithConfiguration(String inputPdfPath, SplitConfiguration config,
+                                                          String outputDirectory) throws PdfSplitterException {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.splitPdfWithConfiguration(inputPdfPath, config, outputDirectory);
+            }
+        };
+        startServer(blockingService, 1, 0);
+
+        CompletableFuture<HttpResponse<String>> first = client.sendAsync(splitRequest("", CONFIG),
+            HttpResponse.BodyHandlers.ofString());
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        HttpResponse<String> second = client.send(splitRequest("", CONFIG), HttpResponse.BodyHandlers.ofString());
+        assertEquals(429, second.statusCode());
+
+        release.countDown();
+        assertEquals(200, first.get(10, TimeUnit.SECONDS).statusCode());
+    }
+
+    private void startServer(PdfSplitterService service, int concurrency, int queueCapacity) throws IOException {
+        server = new SplitHttpServer(service, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+            concurrency, queueCapacity, tempDir.resolve("work").toString(), tempDir.resolve("outputs").toString());
+        server.start();
+    }
+
+    private HttpRequest splitRequest(String query, String config) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writePart(body, "config", "config.json", "application/json", config.getBytes(StandardCharsets.UTF_8));
+        writePart(body, "pdf", "input.pdf", "application/pdf", TestDocuments.pdfBytes());
+        body.write(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/split" + query))
+            .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+            .build();
+    }
+
+    private void writePart(ByteArrayOutputStream body, String name, String fileName, String contentType,
+                           byte[] content) throws IOException {
+        String header = "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"" + name + "\"; filename=\"" + fileName + "\"\r\n" +
+            "Content-Type: " + contentType + "\r\n\r\n";
+        body.write(header.getBytes(StandardCharsets.ISO_8859_1));
+        body.write(content);
+        body.write("\r\n".getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
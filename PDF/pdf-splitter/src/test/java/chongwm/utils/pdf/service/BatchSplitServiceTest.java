@@ -0,0 +1,56 @@
+package chongwm.utils.pdf.service;
+
+import chongwm.utils.pdf.TestDocuments;
+import chongwm.utils.pdf.model.BatchItem;
+import chongwm.utils.pdf.model.BatchItemResult;
+import chongwm.utils.pdf.model.BatchSummary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSplitServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRunBatchReportsEveryItem() throws IOException {
+        File pdf = TestDocuments.writePdf(tempDir.resolve("test.pdf")).toFile();
+        File config = TestDocuments.writeConfig(tempDir.resolve("config.json"), 
+                                                TestDocuments.INVOICE_AND_RECEIPT).toFile();
+
+        List<BatchItem> items = Arrays.asList(
+            new BatchItem(1, pdf.getAbsolutePath(), config.getAbsolutePath(), tempDir.resolve("out1").toString()),
+            new BatchItem(2, "missing.pdf", config.getAbsolutePath(), tempDir.resolve("out2").toString()),
+            new BatchItem(3, pdf.getAbsolutePath(), config.getAbsolutePath(), tempDir.resolve("out3").toString())
+        );
+
+        List<BatchItemResult> reported = new ArrayList<>();
+        BatchSummary summary = new BatchSplitService(new PdfSplitterService(), 2).run(items, reported::add);
+
+        assertEquals(3, reported.size());
+        assertEquals(3, summary.getTotalItems());
+        assertEquals(2, summary.getSucceeded());
+        assertEquals(1, summary.getFailed());
+        assertEquals(4, summary.getOutputFileCount());
+
+        // Results are returned in manifest order
+        assertTrue(summary.getResults().get(0).isSuccess());
+        assertFalse(summary.getResults().get(1).isSuccess());
+        assertTrue(summary.getResults().get(1).toStatusLine().startsWith("FAILED\t2\t"));
+        assertTrue(summary.getResults().get(2).isSuccess());
+    }
+
+    @Test
+    void testInvalidConcurrencyIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchSplitService(new PdfSplitterService(), 0));
+    }
+}
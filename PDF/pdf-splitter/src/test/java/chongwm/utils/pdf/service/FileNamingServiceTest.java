@@ -1,12 +1,24 @@
 package chongwm.utils.pdf.service;
 
+import chongwm.utils.pdf.model.OutputLayout;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -56,6 +68,48 @@ class FileNamingServiceTest {
         assertEquals("invoice_95_2.pdf", fileName3);
     }
 
+    @Test
+    void testGenerateUniqueFileNameSkipsExistingIndices() throws IOException {
+        new File(tempDir.toFile(), "invoice_95.pdf").createNewFile();
+        for (int i = 1; i <= 500; i++) {
+            new File(tempDir.toFile(), "invoice_95_" + i + ".pdf").createNewFile();
+        }
+
+        assertEquals("invoice_95_501.pdf", fileNamingService.generateUniqueFileName("invoice", 95, tempDir.toString()));
+        assertEquals("invoice_95_502.pdf", fileNamingService.generateUniqueFileName("invoice", 95, tempDir.toString()));
+    }
+
+    @Test
+    void testGenerateUniqueFileNameConcurrently() throws Exception {
+        int threads = 8;
+        int namesPerThread = 250;
+        Set<String> names = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < namesPerThread; i++) {
+                        names.add(fileNamingService.generateUniqueFileName("invoice", 95, tempDir.toString()));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * namesPerThread, names.size());
+        assertTrue(names.contains("invoice_95.pdf"));
+        assertTrue(names.contains("invoice_95_" + (threads * namesPerThread - 1) + ".pdf"));
+    }
+
     @Test
     void testGenerateUniqueFileNameWithReservedWindowsName() {
         String fileName = fileNamingService.generateUniqueFileName("CON", 95, tempDir.toString());
@@ -78,6 +132,38 @@ class FileNamingServiceTest {
         assertTrue(fileName.length() < 255);
     }
 
+    @Test
+    void testGenerateUniqueEntryName() {
+        Set<String> usedNames = new HashSet<>();
+
+        assertEquals("invoice_95.pdf", fileNamingService.generateUniqueEntryName("invoice", 95, usedNames));
+        assertEquals("invoice_95_1.pdf", fileNamingService.generateUniqueEntryName("invoice", 95, usedNames));
+        assertEquals("file_CON_95.pdf", fileNamingService.generateUniqueEntryName("CON", 95, usedNames));
+
+        // A separate namespace starts over
+        assertEquals("invoice_95.pdf", fileNamingService.generateUniqueEntryName("invoice", 95, new HashSet<>()));
+    }
+
+    @Test
+    void testShardedPathsResolveDuplicatesPerShard() throws IOException {
+        LocalDate date = LocalDate.of(2024, 5, 17);
+        String first = fileNamingService.generateUniqueFilePath("invoice", 95, tempDir.toString(), 
+            OutputLayout.HASH, "a.pdf#1-2", date);
+        String second = fileNamingService.generateUniqueFilePath("invoice", 95, tempDir.toString(), 
+            OutputLayout.HASH, "a.pdf#1-2", date);
+        assertTrue(first.matches("[0-9a-f]{2}/[0-9a-f]{2}/invoice_95\\.pdf"), first);
+        assertEquals(first.replace(".pdf", "_1.pdf"), second);
+
+        // A file already in another shard does not make the name taken here
+        Path dated = tempDir.resolve("2024/05/17/invoice");
+        Files.createDirectories(dated);
+        Files.createFile(dated.resolve("invoice_95.pdf"));
+        assertEquals("2024/05/17/invoice/invoice_95_1.pdf", fileNamingService.generateUniqueFilePath(
+            "invoice", 95, tempDir.toString(), OutputLayout.DATE_CATEGORY, "ignored", date));
+        assertEquals("invoice_95.pdf", fileNamingService.generateUniqueFilePath(
+            "invoice", 95, tempDir.toString(), OutputLayout.FLAT, "ignored", date));
+    }
+
     @Test
     void testReset() {
         // Generate a filename
@@ -93,4 +179,48 @@ class FileNamingServiceTest {
         String fileName3 = fileNamingService.generateUniqueFileName("invoice", 95, tempDir.toString());
         assertEquals("invoice_95.pdf", fileName3);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testOnlyRecentOutputRootsAreRemembered() throws IOException {
+        String first = tempDir.resolve("request-0").toString();
+        assertEquals("invoice_95.pdf", fileNamingService.generateUniqueFileName("invoice", 95, first));
+        for (int i = 1; i <= FileNamingService.MAX_OUTPUT_ROOTS + 10; i++) {
+            fileNamingService.generateUniqueFileName("invoice", 95, tempDir.resolve("request-" + i).toString());
+        }
+        assertEquals(FileNamingService.MAX_OUTPUT_ROOTS, fileNamingService.getRememberedOutputRoots());
+
+        // A forgotten directory is listed again on its next use
+        Files.createDirectories(Path.of(first));
+        Files.createFile(Path.of(first, "invoice_95.pdf"));
+        assertEquals("invoice_95_1.pdf", fileNamingService.generateUniqueFileName("invoice", 95, first));
+    }
+
+    @Test
+    void testEachShardIsListedOnce() {
+        LocalDate date = LocalDate.of(2024, 5, 17);
+        Set<String> shards = new HashSet<>();
+        int sections = 4 * FileNamingService.MAX_OUTPUT_ROOTS;
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < sections; i++) {
+                String path = fileNamingService.generateUniqueFilePath("invoice", 95, tempDir.toString(),
+                    OutputLayout.HASH, "input.pdf#" + i, date);
+                shards.add(path.substring(0, path.lastIndexOf('/')));
+            }
+        }
+
+        assertTrue(shards.size() > FileNamingService.MAX_OUTPUT_ROOTS, "shards: " + shards.size());
+        assertEquals(shards.size(), fileNamingService.getListingCount());
+        assertEquals(1, fileNamingService.getRememberedOutputRoots());
+    }
+
+    @Test
+    void testReleaseReturnsShardedName() {
+        LocalDate date = LocalDate.of(2024, 5, 17);
+        String path = fileNamingService.generateUniqueFilePath("invoice", 95, tempDir.toString(),
+            OutputLayout.HASH, "a.pdf#1-2", date);
+        fileNamingService.release(path, tempDir.toString());
+
+        assertEquals(path, fileNamingService.generateUniqueFilePath("invoice", 95, tempDir.toString(),
+            OutputLayout.HASH, "a.pdf#1-2", date));
+    }
+}
@@ -1,19 +1,77 @@
 package chongwm.utils.pdf.service;
 
+import chongwm.utils.pdf.exception.InvalidConfigurationException;
 import chongwm.utils.pdf.exception.PdfSplitterException;
+import chongwm.utils.pdf.exception.SplitCancelledException;
+import chongwm.utils.pdf.metrics.InMemorySplitMetrics;
+import chongwm.utils.pdf.metrics.SplitCounter;
+import chongwm.utils.pdf.metrics.SplitMetrics;
+import chongwm.utils.pdf.metrics.SplitPhase;
+import chongwm.utils.pdf.model.ArchiveFormat;
 import chongwm.utils.pdf.model.DocumentSection;
+import chongwm.utils.pdf.model.FanOutResult;
+import chongwm.utils.pdf.model.OutputLayout;
+import chongwm.utils.pdf.model.PreflightReport;
+import chongwm.utils.pdf.model.SaveProfile;
+import chongwm.utils.pdf.model.SectionReport;
 import chongwm.utils.pdf.model.SplitConfiguration;
+import chongwm.utils.pdf.model.SplitOptions;
+import chongwm.utils.pdf.util.JsonReaders;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.io.RandomAccessReadMemoryMappedFile;
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.encryption.AccessPermission;
+import org.apache.pdfbox.pdmodel.encryption.StandardProtectionPolicy;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationLink;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageDestination;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageFitDestination;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -114,6 +172,1060 @@ class PdfSplitterServiceTest {
         });
     }
 
+    @Test
+    void testParallelSplitMatchesSequentialSplit() throws PdfSplitterException, IOException {
+        List<DocumentSection> sections = Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("invoice", 3, 3, 95),
+            new DocumentSection("receipt", 4, 4, 88),
+            new DocumentSection("contract", 5, 5, 92)
+        );
+        SplitConfiguration config = new SplitConfiguration(sections);
+
+        Path sequentialDir = tempDir.resolve("sequential");
+        Path parallelDir = tempDir.resolve("parallel");
+
+        List<String> sequentialFiles = pdfSplitterService.splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, sequentialDir.toString());
+
+        SplitOptions options = new SplitOptions();
+        options.setWorkerCount(3);
+        PdfSplitterService parallelService = new PdfSplitterService(new FileNamingService(), options);
+        List<String> parallelFiles = parallelService.splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, parallelDir.toString());
+
+        // Same names, same order, same bytes
+        assertEquals(sequentialFiles.size(), parallelFiles.size());
+        for (int i = 0; i < sequentialFiles.size(); i++) {
+            Path sequentialFile = Path.of(sequentialFiles.get(i));
+            Path parallelFile = Path.of(parallelFiles.get(i));
+            assertEquals(sequentialFile.getFileName(), parallelFile.getFileName());
+            assertArrayEquals(Files.readAllBytes(sequentialFile), Files.readAllBytes(parallelFile));
+        }
+    }
+
+    @Test
+    void testMemoryBoundedSplitMatchesDefaultSplit() throws PdfSplitterException, IOException {
+        List<DocumentSection> sections = Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("receipt", 3, 5, 88)
+        );
+        SplitConfiguration config = new SplitConfiguration(sections);
+
+        List<String> defaultFiles = pdfSplitterService.splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, tempDir.resolve("default").toString());
+
+        Path scratchDir = Files.createDirectories(tempDir.resolve("scratch"));
+        SplitOptions options = new SplitOptions();
+        options.setMemoryBudgetBytes(0);
+        options.setScratchDirectory(scratchDir.toString());
+        options.setWorkerCount(2);
+        PdfSplitterService boundedService = new PdfSplitterService(new FileNamingService(), options);
+        List<String> boundedFiles = boundedService.splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, tempDir.resolve("bounded").toString());
+
+        assertEquals(defaultFiles.size(), boundedFiles.size());
+        for (int i = 0; i < defaultFiles.size(); i++) {
+            assertArrayEquals(Files.readAllBytes(Path.of(defaultFiles.get(i))), 
+                              Files.readAllBytes(Path.of(boundedFiles.get(i))));
+        }
+    }
+
+    @Test
+    void testSplitPdfToZipArchive() throws PdfSplitterException, IOException {
+        List<DocumentSection> sections = Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("invoice", 3, 3, 95)
+        );
+        SplitConfiguration config = new SplitConfiguration(sections);
+
+        List<String> files = pdfSplitterService.splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, tempDir.resolve("files").toString());
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        List<String> entries = new PdfSplitterService().splitPdfToArchive(
+            testPdf.getAbsolutePath(), config, archive, ArchiveFormat.ZIP);
+
+        assertEquals(Arrays.asList("invoice_95.pdf", "invoice_95_1.pdf"), entries);
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+            for (int i = 0; i < files.size(); i++) {
+                ZipEntry entry = zip.getNextEntry();
+                assertEquals(entries.get(i), entry.getName());
+                assertArrayEquals(Files.readAllBytes(Path.of(files.get(i))), zip.readAllBytes());
+            }
+            assertNull(zip.getNextEntry());
+        }
+        // No files are staged in the output area
+        assertFalse(tempDir.resolve("invoice_95.pdf").toFile().exists());
+    }
+
+    @Test
+    void testSplitPdfToTarArchive() throws PdfSplitterException, IOException {
+        List<DocumentSection> sections = Arrays.asList(
+            new DocumentSection("receipt", 1, 1, 88)
+        );
+        SplitConfiguration config = new SplitConfiguration(sections);
+
+        List<String> files = pdfSplitterService.splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, tempDir.resolve("files").toString());
+        byte[] expected = Files.readAllBytes(Path.of(files.get(0)));
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        new PdfSplitterService().splitPdfToArchive(testPdf.getAbsolutePath(), config, archive, ArchiveFormat.TAR);
+        byte[] tar = archive.toByteArray();
+
+        assertEquals(0, tar.length % 512);
+        assertEquals("receipt_88.pdf", new String(tar, 0, 14, StandardCharsets.US_ASCII));
+        assertEquals("ustar", new String(tar, 257, 5, StandardCharsets.US_ASCII));
+        assertEquals(expected.length, Long.parseLong(new String(tar, 124, 11, StandardCharsets.US_ASCII), 8));
+        assertArrayEquals(expected, Arrays.copyOfRange(tar, 512, 512 + expected.length));
+    }
+
+    @Test
+    void testSaveProfilesTradeSizeForSpeed() throws PdfSplitterException, IOException {
+        File textPdf = createTextPdf();
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("statement", 1, 6, 90)
+        ));
+
+        long[] sizes = new long[SaveProfile.values().length];
+        for (SaveProfile profile : SaveProfile.values()) {
+            SplitOptions options = new SplitOptions();
+            options.setSaveProfile(profile);
+            // Each profile gets a fresh copy of the source, as it would in production
+            List<String> files = new PdfSplitterService(new FileNamingService(), options).splitPdfWithConfiguration(
+                textPdf.getAbsolutePath(), config, tempDir.resolve(profile.name()).toString());
+
+            File output = new File(files.get(0));
+            sizes[profile.ordinal()] = output.length();
+            try (PDDocument document = Loader.loadPDF(output)) {
+                assertEquals(6, document.getNumberOfPages());
+            }
+        }
+
+        assertTrue(sizes[SaveProfile.COMPACT.ordinal()] < sizes[SaveProfile.DEFAULT.ordinal()]);
+        assertTrue(sizes[SaveProfile.DEFAULT.ordinal()] < sizes[SaveProfile.FAST.ordinal()]);
+    }
+
+    @Test
+    void testPruneResourcesDropsUnusedSharedImages() throws Exception {
+        File sharedPdf = createSharedResourcesPdf();
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("first", 1, 1, 90)
+        ));
+
+        List<String> unprunedFiles = pdfSplitterService.splitPdfWithConfiguration(
+            sharedPdf.getAbsolutePath(), config, tempDir.resolve("unpruned").toString());
+
+        SplitOptions options = new SplitOptions();
+        options.setPruneResources(true);
+        List<String> prunedFiles = new PdfSplitterService(new FileNamingService(), options)
+            .splitPdfWithConfiguration(sharedPdf.getAbsolutePath(), config, tempDir.resolve("pruned").toString());
+
+        File unpruned = new File(unprunedFiles.get(0));
+        File pruned = new File(prunedFiles.get(0));
+        assertTrue(pruned.length() * 2 < unpruned.length(),
+            "pruned " + pruned.length() + " bytes vs unpruned " + unpruned.length());
+
+        try (PDDocument document = Loader.loadPDF(pruned)) {
+            PDResources resources = document.getPage(0).getResources();
+            int imageCount = 0;
+            for (COSName name : resources.getXObjectNames()) {
+                assertNotNull(resources.getXObject(name));
+                imageCount++;
+            }
+            assertEquals(1, imageCount);
+        }
+    }
+
+    @Test
+    void testPruningLeavesSharedSourceUntouched() throws Exception {
+        File sharedPdf = createSharedResourcesPdf();
+        SplitOptions options = new SplitOptions();
+        options.setPruneResources(true);
+        Map<String, SplitConfiguration> configurations = new LinkedHashMap<>();
+        configurations.put(tempDir.resolve("first").toString(), new SplitConfiguration(Arrays.asList(
+            new DocumentSection("first", 1, 1, 90))));
+        configurations.put(tempDir.resolve("second").toString(), new SplitConfiguration(Arrays.asList(
+            new DocumentSection("second", 1, 3, 90))));
+
+        List<FanOutResult> results = new PdfSplitterService(new FileNamingService(), options)
+            .splitPdfWithConfigurations(sharedPdf.getAbsolutePath(), configurations);
+
+        try (PDDocument document = Loader.loadPDF(new File(results.get(1).getOutputFiles().get(0)))) {
+            assertEquals(3, document.getNumberOfPages());
+            for (PDPage page : document.getPages()) {
+                int imageCount = 0;
+                for (COSName name : page.getResources().getXObjectNames()) {
+                    assertNotNull(page.getResources().getXObject(name));
+                    imageCount++;
+                }
+                assertEquals(1, imageCount);
+            }
+        }
+
+        // The pages the split prunes are copies; the source keeps its shared dictionary
+        try (PDDocument source = Loader.loadPDF(sharedPdf)) {
+            COSBase original = source.getPage(0).getCOSObject().getItem(COSName.RESOURCES);
+            ResourcePruner pruner = new ResourcePruner();
+            for (PDPage page : new SelectivePageCopier(false).copy(source, 0, 1, new CancellationToken())) {
+                pruner.prune(page);
+            }
+            assertSame(original, source.getPage(0).getCOSObject().getItem(COSName.RESOURCES));
+            int sharedImages = 0;
+            for (COSName ignored : source.getPage(0).getResources().getXObjectNames()) {
+                sharedImages++;
+            }
+            assertEquals(4, sharedImages);
+        }
+    }
+
+    @Test
+    void testReuseResultsSkipsRepeatedSplit() throws Exception {
+        SplitOptions options = new SplitOptions();
+        options.setReuseResults(true);
+        PdfSplitterService service = new PdfSplitterService(new FileNamingService(), options);
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("receipt", 3, 4, 85)
+        ));
+        String outputDir = tempDir.resolve("cached").toString();
+
+        List<String> first = service.splitPdfWithConfiguration(testPdf.getAbsolutePath(), config, outputDir);
+        List<String> second = service.splitPdfWithConfiguration(testPdf.getAbsolutePath(), config, outputDir);
+
+        assertEquals(first, second);
+        assertEquals(2, new File(outputDir).list((dir, name) -> name.endsWith(".pdf")).length);
+        assertTrue(new File(outputDir, SplitResultCache.MANIFEST_NAME).isFile());
+
+        // A missing output invalidates the cached result
+        assertTrue(new File(first.get(1)).delete());
+        List<String> third = service.splitPdfWithConfiguration(testPdf.getAbsolutePath(), config, outputDir);
+        assertNotEquals(first, third);
+        third.forEach(path -> assertTrue(new File(path).exists()));
+
+        // A different configuration is a different key
+        SplitConfiguration other = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 3, 95)
+        ));
+        List<String> fourth = service.splitPdfWithConfiguration(testPdf.getAbsolutePath(), other, outputDir);
+        assertFalse(third.contains(fourth.get(0)));
+    }
+
+    @Test
+    void testResultCacheKeysDoNotCollideOnSeparatorsInCategories() throws Exception {
+        SplitResultCache cache = new SplitResultCache();
+        SplitOptions options = new SplitOptions();
+        PdfSource input = PdfSource.file(testPdf);
+        SplitConfiguration twoSections = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("x", 1, 1, 90),
+            new DocumentSection("y", 2, 2, 80)
+        ));
+        SplitConfiguration oneSection = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("x|1|1|90\ny", 2, 2, 80)
+        ));
+
+        assertNotEquals(cache.computeKey(input, twoSections, options), cache.computeKey(input, oneSection, options));
+        assertEquals(cache.computeKey(input, twoSections, options), cache.computeKey(input, twoSections, options));
+    }
+
+    @Test
+    void testSplitPdfWithSectionsStopsAtBadSection() throws Exception {
+        Iterator<DocumentSection> sections = Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("receipt", 3, 4, 85),
+            new DocumentSection("statement", 4, 5, 80)
+        ).iterator();
+        String outputDir = tempDir.resolve("streamed").toString();
+
+        InvalidConfigurationException e = assertThrows(InvalidConfigurationException.class, 
+            () -> pdfSplitterService.splitPdfWithSections(testPdf.getAbsolutePath(), sections, outputDir));
+
+        assertTrue(e.getMessage().contains("overlap"));
+        assertTrue(new File(outputDir, "invoice_95.pdf").exists());
+        assertTrue(new File(outputDir, "receipt_85.pdf").exists());
+        assertFalse(new File(outputDir, "statement_80.pdf").exists());
+    }
+
+    @Test
+    void testMetricsRecordPhasesAndCounters() throws Exception {
+        InMemorySplitMetrics metrics = new InMemorySplitMetrics();
+        SplitOptions options = new SplitOptions();
+        options.setMetrics(metrics);
+        PdfSplitterService service = new PdfSplitterService(new FileNamingService(), options);
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("receipt", 3, 5, 85)
+        ));
+
+        List<String> outputFiles = service.splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, tempDir.toString());
+
+        long written = 0;
+        for (String outputFile : outputFiles) {
+            written += new File(outputFile).length();
+        }
+        assertEquals(1, metrics.getHistogram(SplitPhase.LOAD).getCount());
+        assertEquals(1, metrics.getHistogram(SplitPhase.VALIDATE).getCount());
+        assertEquals(2, metrics.getHistogram(SplitPhase.COPY).getCount());
+        assertEquals(2, metrics.getHistogram(SplitPhase.SAVE).getCount());
+        assertEquals(2, metrics.getHistogram(SplitPhase.SECTION).getCount());
+        assertEquals(testPdf.length(), metrics.getCount(SplitCounter.BYTES_READ));
+        assertEquals(written, metrics.getCount(SplitCounter.BYTES_WRITTEN));
+        assertEquals(5, metrics.getCount(SplitCounter.PAGES_COPIED));
+        assertEquals(2, metrics.getCount(SplitCounter.SECTIONS_WRITTEN));
+
+        String text = metrics.toPrometheusText();
+        assertTrue(text.contains("pdf_splitter_phase_seconds_count{phase=\"save\"} 2\n"));
+        assertTrue(text.contains("pdf_splitter_phase_seconds_bucket{phase=\"copy\",le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("pdf_splitter_pages_copied_total 5\n"));
+    }
+
+    @Test
+    void testListenerReportsSectionsInOrder() throws Exception {
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("receipt", 3, 5, 85)
+        ));
+        List<String> events = new ArrayList<>();
+        SplitListener listener = new SplitListener() {
+            @Override
+            public void onSectionStarted(DocumentSection section, String outputName) {
+                events.add("start " + new File(outputName).getName());
+            }
+
+            @Override
+            public void onSectionCompleted(SectionReport report) {
+                assertEquals(new File(report.getOutputName()).length(), report.getBytesWritten());
+                events.add("done " + new File(report.getOutputName()).getName());
+            }
+        };
+
+        pdfSplitterService.splitPdfWithConfiguration(testPdf.getAbsolutePath(), config, tempDir.toString(),
+                                                     listener, new CancellationToken());
+
+        assertEquals(Arrays.asList("start invoice_95.pdf", "done invoice_95.pdf", 
+                                   "start receipt_85.pdf", "done receipt_85.pdf"), events);
+    }
+
+    @Test
+    void testCancelBetweenSectionsDeletesWrittenOutputs() throws Exception {
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("receipt", 3, 5, 85)
+        ));
+        String outputDir = tempDir.resolve("cancelled").toString();
+        CancellationToken cancellation = new CancellationToken();
+        SplitListener cancelAfterFirst = new SplitListener() {
+            @Override
+            public void onSectionCompleted(SectionReport report) {
+                assertTrue(new File(report.getOutputName()).exists());
+                cancellation.cancel();
+            }
+        };
+
+        assertThrows(SplitCancelledException.class, () -> pdfSplitterService.splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, outputDir, cancelAfterFirst, cancellation));
+
+        assertEquals(0, new File(outputDir).list((dir, name) -> name.endsWith(".pdf")).length);
+        
+        // The released names are used again by the next split
+        List<String> outputFiles = pdfSplitterService.splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, outputDir);
+        assertEquals(outputDir + File.separator + "invoice_95.pdf", outputFiles.get(0));
+    }
+
+    @Test
+    void testFilesCreatedAfterListingAreNeverOverwritten() throws Exception {
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("receipt", 3, 5, 85)
+        ));
+        Path outputDir = tempDir.resolve("contended");
+        Path foreign = outputDir.resolve("receipt_85.pdf");
+        byte[] foreignContent = "written by another process".getBytes(StandardCharsets.UTF_8);
+        SplitListener writeForeignFile = new SplitListener() {
+            @Override
+            public void onSectionStarted(DocumentSection section, String name) {
+                try {
+                    if (section.getCategory().equals("invoice")) {
+                        Files.write(foreign, foreignContent);
+                    }
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        };
+
+        // The directory was listed before the foreign file appeared
+        List<String> outputFiles = pdfSplitterService.splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, outputDir.toString(), writeForeignFile, new CancellationToken());
+        assertEquals(outputDir.resolve("receipt_85_1.pdf").toString(), outputFiles.get(1));
+        assertArrayEquals(foreignContent, Files.readAllBytes(foreign));
+        try (PDDocument receipt = Loader.loadPDF(new File(outputFiles.get(1)))) {
+            assertEquals(3, receipt.getNumberOfPages());
+        }
+
+        // A cancelled split only deletes the files it created itself
+        Files.delete(foreign);
+        CancellationToken cancellation = new CancellationToken();
+        SplitListener cancelAfterReceipt = new SplitListener() {
+            @Override
+            public void onSectionStarted(DocumentSection section, String name) {
+                writeForeignFile.onSectionStarted(section, name);
+            }
+
+            @Override
+            public void onSectionCompleted(SectionReport report) {
+                if (report.getSection().getCategory().equals("receipt")) {
+                    cancellation.cancel();
+                }
+            }
+        };
+        SplitConfiguration longer = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("receipt", 3, 4, 85),
+            new DocumentSection("contract", 5, 5, 90)
+        ));
+        assertThrows(SplitCancelledException.class, () -> new PdfSplitterService().splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), longer, outputDir.toString(), cancelAfterReceipt, cancellation));
+        assertArrayEquals(foreignContent, Files.readAllBytes(foreign));
+        assertFalse(Files.exists(outputDir.resolve("invoice_95_1.pdf")));
+        assertFalse(Files.exists(outputDir.resolve("receipt_85_2.pdf")));
+        assertTrue(Files.exists(outputDir.resolve("invoice_95.pdf")));
+        assertTrue(Files.exists(outputDir.resolve("receipt_85_1.pdf")));
+    }
+
+    @Test
+    void testFailingListenerFailsSplitAndDiscardsOutputs() throws Exception {
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("receipt", 3, 4, 85),
+            new DocumentSection("contract", 5, 5, 90)
+        ));
+        IllegalStateException listenerFailure = new IllegalStateException("listener broke");
+        SplitListener failOnReceipt = new SplitListener() {
+            @Override
+            public void onSectionCompleted(SectionReport report) {
+                if (report.getSection().getCategory().equals("receipt")) {
+                    throw listenerFailure;
+                }
+            }
+        };
+        SplitOptions options = new SplitOptions();
+        options.setWorkerCount(3);
+
+        for (PdfSplitterService service : Arrays.asList(
+                pdfSplitterService, new PdfSplitterService(new FileNamingService(), options))) {
+            Path outputDir = Files.createTempDirectory(tempDir, "failing");
+            PdfSplitterException e = assertThrows(PdfSplitterException.class, () -> 
+                service.splitPdfWithConfiguration(testPdf.getAbsolutePath(), config, outputDir.toString(), 
+                                                  failOnReceipt, new CancellationToken()));
+            assertSame(listenerFailure, e.getCause());
+            assertEquals(0, outputDir.toFile().list((dir, name) -> name.endsWith(".pdf")).length);
+        }
+    }
+
+    @Test
+    void testCancelDuringParallelSplitStopsAllWorkers() throws Exception {
+        SplitOptions options = new SplitOptions();
+        options.setWorkerCount(2);
+        PdfSplitterService service = new PdfSplitterService(new FileNamingService(), options);
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 1, 95),
+            new DocumentSection("receipt", 2, 3, 85),
+            new DocumentSection("contract", 4, 5, 92)
+        ));
+        String outputDir = tempDir.resolve("cancelled").toString();
+        CancellationToken cancellation = new CancellationToken();
+        SplitListener cancelOnStart = new SplitListener() {
+            @Override
+            public void onSectionStarted(DocumentSection section, String outputName) {
+                cancellation.cancel();
+            }
+        };
+
+        assertThrows(SplitCancelledException.class, () -> service.splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, outputDir, cancelOnStart, cancellation));
+
+        assertEquals(0, new File(outputDir).list((dir, name) -> name.endsWith(".pdf")).length);
+    }
+
+    @Test
+    void testSplitPdfAsyncLimitsConcurrentSplits() throws Exception {
+        SplitOptions options = new SplitOptions();
+        options.setAsyncConcurrency(2);
+        PdfSplitterService service = new PdfSplitterService(new FileNamingService(), options);
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("receipt", 3, 5, 85)
+        ));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        SplitListener tracker = new SplitListener() {
+            @Override
+            public void onSectionStarted(DocumentSection section, String outputName) {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            }
+
+            @Override
+            public void onSectionCompleted(SectionReport report) {
+                running.decrementAndGet();
+            }
+        };
+
+        List<CompletableFuture<List<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(service.splitPdfAsync(testPdf.getAbsolutePath(), config, 
+                                              tempDir.resolve("async-" + i).toString(), tracker));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            List<String> outputFiles = futures.get(i).get(30, TimeUnit.SECONDS);
+            assertEquals(tempDir.resolve("async-" + i).resolve("receipt_85.pdf").toString(), outputFiles.get(1));
+        }
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    void testSplitPdfAsyncReportsFailures() {
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 20, 95)
+        ));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> pdfSplitterService
+            .splitPdfAsync(testPdf.getAbsolutePath(), config, tempDir.toString()).get(30, TimeUnit.SECONDS));
+        assertInstanceOf(PdfSplitterException.class, e.getCause());
+    }
+
+    @Test
+    void testClosedServiceRejectsAsyncSplits() throws Exception {
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95)
+        ));
+        CompletableFuture<List<String>> submitted = pdfSplitterService.splitPdfAsync(
+            testPdf.getAbsolutePath(), config, tempDir.toString());
+
+        pdfSplitterService.close();
+        assertEquals(1, submitted.get(30, TimeUnit.SECONDS).size());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> pdfSplitterService
+            .splitPdfAsync(testPdf.getAbsolutePath(), config, tempDir.toString()).get(30, TimeUnit.SECONDS));
+        assertInstanceOf(PdfSplitterException.class, e.getCause());
+        assertTrue(e.getCause().getMessage().contains("closed"), e.getCause().getMessage());
+    }
+
+    @Test
+    void testAsyncExecutorReportsThreadsItUses() throws Exception {
+        ExecutorService executor = AsyncExecutors.create(2);
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get(30, TimeUnit.SECONDS);
+            // Thread.isVirtual() only exists from Java 21; platform threads are named by the pool
+            assertEquals(!thread.getName().startsWith("pdf-splitter-async-"), 
+                         AsyncExecutors.usesVirtualThreads(executor));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSplitToSinksMatchesFileSplit() throws Exception {
+        SplitOptions options = new SplitOptions();
+        options.setWorkerCount(2);
+        PdfSplitterService service = new PdfSplitterService(new FileNamingService(), options);
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("receipt", 3, 4, 85),
+            new DocumentSection("invoice", 5, 5, 95)
+        ));
+        Map<String, ByteArrayOutputStream> buffers = new ConcurrentHashMap<>();
+
+        List<String> names = service.splitPdfWithConfiguration(testPdf.getAbsolutePath(), config,
+            SectionSinkFactory.ofChannels((section, name) -> {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                buffers.put(name, buffer);
+                return Channels.newChannel(buffer);
+            }));
+        List<String> files = service.splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, tempDir.resolve("files").toString());
+
+        assertEquals(Arrays.asList("invoice_95.pdf", "receipt_85.pdf", "invoice_95_1.pdf"), names);
+        for (int i = 0; i < names.size(); i++) {
+            assertArrayEquals(Files.readAllBytes(Path.of(files.get(i))), buffers.get(names.get(i)).toByteArray());
+        }
+    }
+
+    @Test
+    void testStreamAndMappedInputsMatchFileInput() throws Exception {
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("receipt", 3, 5, 85)
+        ));
+        byte[] pdfBytes = Files.readAllBytes(testPdf.toPath());
+        List<String> expected = pdfSplitterService.splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, tempDir.resolve("file").toString());
+
+        SplitOptions options = new SplitOptions();
+        options.setMemoryMappedInput(true);
+        List<String> mapped = new PdfSplitterService(new FileNamingService(), options).splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, tempDir.resolve("mapped").toString());
+
+        Path scratch = Files.createDirectories(tempDir.resolve("scratch"));
+        List<String> inMemory;
+        try (PdfSource input = PdfSource.spool(new ByteArrayInputStream(pdfBytes), 2L * pdfBytes.length, 
+                                               scratch.toFile())) {
+            assertEquals(0, scratch.toFile().list().length);
+            inMemory = pdfSplitterService.splitPdfWithConfiguration(input, config, tempDir.resolve("memory").toString());
+        }
+
+        // Growing the buffer to the whole budget would need twice the budget, so it spills
+        List<String> spilled;
+        try (PdfSource input = PdfSource.spool(new ByteArrayInputStream(pdfBytes), pdfBytes.length, 
+                                               scratch.toFile())) {
+            assertEquals(1, scratch.toFile().list().length);
+            assertEquals(pdfBytes.length, input.length());
+            spilled = pdfSplitterService.splitPdfWithConfiguration(input, config, tempDir.resolve("spilled").toString());
+        }
+        assertEquals(0, scratch.toFile().list().length);
+
+        for (int i = 0; i < expected.size(); i++) {
+            byte[] expectedBytes = Files.readAllBytes(Path.of(expected.get(i)));
+            assertArrayEquals(expectedBytes, Files.readAllBytes(Path.of(mapped.get(i))));
+            assertArrayEquals(expectedBytes, Files.readAllBytes(Path.of(inMemory.get(i))));
+            assertArrayEquals(expectedBytes, Files.readAllBytes(Path.of(spilled.get(i))));
+        }
+    }
+
+    @Test
+    void testInputTooLargeToMapIsReadThroughBuffer() throws Exception {
+        File huge = tempDir.resolve("huge.pdf").toFile();
+        try (RandomAccessFile file = new RandomAccessFile(huge, "rw")) {
+            // Sparse, so no disk space is used
+            file.setLength(PdfSource.MAX_MAPPED_BYTES + 1);
+        }
+
+        try (RandomAccessRead read = PdfSource.mappedFile(huge).openRead()) {
+            assertInstanceOf(RandomAccessReadBufferedFile.class, read);
+        }
+        try (RandomAccessRead read = PdfSource.mappedFile(testPdf).openRead()) {
+            assertInstanceOf(RandomAccessReadMemoryMappedFile.class, read);
+        }
+    }
+
+    @Test
+    void testSelectiveExtractionCopiesOnlySectionPages() throws Exception {
+        File linkedPdf = createLinkedPdf(40);
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("excerpt", 30, 32, 90),
+            new DocumentSection("following", 33, 34, 90)
+        ));
+        List<String> full = pdfSplitterService.splitPdfWithConfiguration(
+            linkedPdf.getAbsolutePath(), config, tempDir.resolve("full").toString());
+
+        SplitOptions options = new SplitOptions();
+        options.setSelectiveExtraction(true);
+        List<String> selective = new PdfSplitterService(new FileNamingService(), options).splitPdfWithConfiguration(
+            linkedPdf.getAbsolutePath(), config, tempDir.resolve("selective").toString());
+
+        try (PDDocument fullExcerpt = Loader.loadPDF(new File(full.get(0)))) {
+            // Without trimming, the links to page 1 pull the whole source page tree into the output
+            assertTrue(fullExcerpt.getDocument().getXrefTable().size() > 120);
+        }
+        try (PDDocument excerpt = Loader.loadPDF(new File(selective.get(0)));
+             PDDocument following = Loader.loadPDF(new File(selective.get(1)))) {
+            assertEquals(3, excerpt.getNumberOfPages());
+            assertTrue(excerpt.getDocument().getXrefTable().size() < 20);
+            assertEquals(2, following.getNumberOfPages());
+            assertEquals("Page 30", excerpt.getPage(0).getAnnotations().get(0).getContents());
+            assertEquals("Page 33", following.getPage(0).getAnnotations().get(0).getContents());
+
+            // Links within the section point at its own pages, links outside it are dropped
+            PDAnnotationLink next = (PDAnnotationLink) excerpt.getPage(0).getAnnotations().get(1);
+            PDPageDestination destination = (PDPageDestination) next.getDestination();
+            assertEquals(1, excerpt.getPages().indexOf(destination.getPage()));
+            PDAnnotationLink contents = (PDAnnotationLink) excerpt.getPage(0).getAnnotations().get(0);
+            assertNull(contents.getDestination());
+            PDAnnotationLink lastNext = (PDAnnotationLink) excerpt.getPage(2).getAnnotations().get(1);
+            assertNull(lastNext.getDestination());
+            assertEquals(612, excerpt.getPage(2).getMediaBox().getWidth(), 0.01);
+        }
+    }
+
+    @Test
+    void testSelectiveLookupSkipsEmptyIntermediateNodes() throws Exception {
+        // The root counts as many pages as it has kids, but its first kid holds two pages and
+        // its last none, so the second page is not the root's second kid
+        COSDictionary[] leaves = new COSDictionary[3];
+        for (int i = 0; i < leaves.length; i++) {
+            leaves[i] = new COSDictionary();
+            leaves[i].setItem(COSName.TYPE, COSName.PAGE);
+        }
+        COSDictionary full = pageTreeNode(2, leaves[0], leaves[1]);
+        COSDictionary empty = pageTreeNode(0);
+        COSDictionary root = pageTreeNode(3, full, leaves[2], empty);
+
+        assertEquals(Arrays.asList(leaves), SelectivePageCopier.locate(root, 0, 2));
+        assertEquals(Collections.singletonList(leaves[1]), SelectivePageCopier.locate(root, 1, 1));
+        assertEquals(Collections.singletonList(leaves[2]), SelectivePageCopier.locate(root, 2, 2));
+        assertThrows(IOException.class, () -> SelectivePageCopier.locate(root, 2, 3));
+    }
+
+    private static COSDictionary pageTreeNode(int count, COSDictionary... kids) {
+        COSDictionary node = new COSDictionary();
+        node.setItem(COSName.TYPE, COSName.PAGES);
+        node.setInt(COSName.COUNT, count);
+        COSArray array = new COSArray();
+        for (COSDictionary kid : kids) {
+            array.add(kid);
+        }
+        node.setItem(COSName.KIDS, array);
+        return node;
+    }
+
+    @Test
+    void testPreflightChecksConfigurationAgainstDocument() throws Exception {
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("receipt", 3, 9, 85)
+        ));
+        PreflightReport report = pdfSplitterService.preflight(testPdf.getAbsolutePath(), config);
+        assertEquals(5, report.getPageCount());
+        assertFalse(report.isEncrypted());
+        assertFalse(report.isRepairNeeded());
+        assertFalse(report.isPassed());
+        assertTrue(report.getProblems().get(0).contains("End page 9 exceeds document page count 5"));
+
+        // A broken startxref offset is repaired the way a split would repair it
+        String pdf = new String(Files.readAllBytes(testPdf.toPath()), StandardCharsets.ISO_8859_1);
+        int offset = pdf.lastIndexOf("startxref") + "startxref".length();
+        String damaged = pdf.substring(0, offset) + "\n1\n%%EOF\n";
+        Path damagedPdf = tempDir.resolve("damaged.pdf");
+        Files.write(damagedPdf, damaged.getBytes(StandardCharsets.ISO_8859_1));
+        report = pdfSplitterService.preflight(damagedPdf.toString(), null);
+        assertTrue(report.isRepairNeeded());
+        assertEquals(5, report.getPageCount());
+        assertTrue(report.isPassed());
+    }
+
+    @Test
+    void testPasswordProtectedInputFailsPreflight() throws Exception {
+        File lockedPdf = tempDir.resolve("locked.pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage());
+            document.protect(new StandardProtectionPolicy("owner", "user", new AccessPermission()));
+            document.save(lockedPdf);
+        }
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(new DocumentSection("invoice", 1, 1, 95)));
+
+        PreflightReport report = pdfSplitterService.preflight(lockedPdf.getAbsolutePath(), config);
+        assertTrue(report.isEncrypted());
+        assertEquals(SplitConfiguration.UNKNOWN_PAGE_COUNT, report.getPageCount());
+        assertFalse(report.isPassed());
+
+        PdfSplitterException exception = assertThrows(PdfSplitterException.class, 
+            () -> pdfSplitterService.splitPdfWithConfiguration(
+                lockedPdf.getAbsolutePath(), config, tempDir.resolve("locked").toString()));
+        assertTrue(exception.getMessage().contains("needs a password"));
+    }
+
+    @Test
+    void testShardedLayoutsPlaceFilesInSubdirectories() throws Exception {
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("receipt", 3, 5, 85)
+        ));
+        Path output = tempDir.resolve("sharded");
+
+        SplitOptions options = new SplitOptions();
+        options.setOutputLayout(OutputLayout.HASH);
+        options.setReuseResults(true);
+        PdfSplitterService hashService = new PdfSplitterService(new FileNamingService(), options);
+        List<String> first = hashService.splitPdfWithConfiguration(testPdf.getAbsolutePath(), config, output.toString());
+        for (String path : first) {
+            String relative = output.relativize(Path.of(path)).toString().replace(File.separatorChar, '/');
+            assertTrue(relative.matches("[0-9a-f]{2}/[0-9a-f]{2}/(invoice_95|receipt_85)\\.pdf"), relative);
+            assertTrue(Files.isRegularFile(Path.of(path)));
+        }
+        assertEquals(first, hashService.splitPdfWithConfiguration(testPdf.getAbsolutePath(), config, output.toString()));
+
+        // Without the cache the same sections land in the same shards and are indexed there
+        options.setReuseResults(false);
+        List<String> second = new PdfSplitterService(new FileNamingService(), options).splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, output.toString());
+        assertEquals(Path.of(first.get(0)).getParent(), Path.of(second.get(0)).getParent());
+        assertTrue(second.get(0).endsWith("invoice_95_1.pdf"));
+
+        options.setOutputLayout(OutputLayout.DATE_CATEGORY);
+        List<String> dated = new PdfSplitterService(new FileNamingService(), options).splitPdfWithConfiguration(
+            testPdf.getAbsolutePath(), config, output.toString());
+        String relative = output.relativize(Path.of(dated.get(1))).toString().replace(File.separatorChar, '/');
+        assertTrue(relative.matches("\\d{4}/\\d{2}/\\d{2}/receipt/receipt_85\\.pdf"), relative);
+    }
+
+    @Test
+    void testManifestRecordsDigestsOfWrittenFiles() throws Exception {
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95),
+            new DocumentSection("receipt", 3, 5, 85)
+        ));
+        Path output = tempDir.resolve("manifest");
+
+        SplitOptions options = new SplitOptions();
+        options.setWriteManifest(true);
+        options.setOutputLayout(OutputLayout.HASH);
+        List<String> outputFiles = new PdfSplitterService(new FileNamingService(), options)
+            .splitPdfWithConfiguration(testPdf.getAbsolutePath(), config, output.toString());
+
+        List<String> lines = Files.readAllLines(output.resolve(OutputManifest.MANIFEST_NAME));
+        assertEquals(2, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            JsonNode line = JsonReaders.mapper().readTree(lines.get(i));
+            Path file = Path.of(outputFiles.get(i));
+            assertEquals(output.relativize(file).toString().replace(File.separatorChar, '/'), line.get("path").asText());
+            assertEquals(Files.size(file), line.get("bytes").asLong());
+            assertEquals(SplitResultCache.toHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file))),
+                         line.get("sha256").asText());
+            assertEquals(config.getDocuments().get(i).getCategory(), line.get("category").asText());
+        }
+        assertEquals(3, JsonReaders.mapper().readTree(lines.get(1)).get("pages").asInt());
+        assertEquals(85, JsonReaders.mapper().readTree(lines.get(1)).get("confidence").asInt());
+    }
+
+    @Test
+    void testFanOutLoadsInputOnceAndReportsEachConfiguration() throws Exception {
+        InMemorySplitMetrics metrics = new InMemorySplitMetrics();
+        SplitOptions options = new SplitOptions();
+        options.setMetrics(metrics);
+        PdfSplitterService service = new PdfSplitterService(new FileNamingService(), options);
+
+        Map<String, SplitConfiguration> configurations = new LinkedHashMap<>();
+        configurations.put(tempDir.resolve("compliance").toString(), new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95))));
+        configurations.put(tempDir.resolve("broken").toString(), new SplitConfiguration(Arrays.asList(
+            new DocumentSection("contract", 4, 9, 90))));
+        configurations.put(tempDir.resolve("underwriting").toString(), new SplitConfiguration(Arrays.asList(
+            new DocumentSection("receipt", 3, 5, 85),
+            new DocumentSection("invoice", 1, 2, 70))));
+
+        List<FanOutResult> results = service.splitPdfWithConfigurations(testPdf.getAbsolutePath(), configurations);
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(Collections.singletonList(tempDir.resolve("compliance").resolve("invoice_95.pdf").toString()),
+                     results.get(0).getOutputFiles());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(1).getErrorMessage().contains("exceeds"), results.get(1).getErrorMessage());
+        assertFalse(Files.exists(tempDir.resolve("broken")));
+        assertTrue(results.get(2).isSuccess());
+        assertEquals(2, results.get(2).getOutputFiles().size());
+        for (String file : results.get(2).getOutputFiles()) {
+            assertTrue(file.startsWith(tempDir.resolve("underwriting").toString()));
+            assertTrue(Files.isRegularFile(Path.of(file)));
+        }
+        assertEquals(1, metrics.getHistogram(SplitPhase.LOAD).getCount());
+    }
+
+    @Test
+    void testDocumentCacheReusesParsedSourceUntilFileChanges() throws Exception {
+        InMemorySplitMetrics metrics = new InMemorySplitMetrics();
+        SplitOptions options = new SplitOptions();
+        options.setMetrics(metrics);
+        // Room for one document only
+        options.setDocumentCacheBytes(testPdf.length() + testPdf.length() / 2);
+        PdfSplitterService service = new PdfSplitterService(new FileNamingService(), options);
+        SplitConfiguration config = new SplitConfiguration(Arrays.asList(new DocumentSection("invoice", 1, 2, 95)));
+
+        service.splitPdfWithConfiguration(testPdf.getAbsolutePath(), config, tempDir.resolve("first").toString());
+        service.splitPdfWithConfiguration(testPdf.getAbsolutePath(), config, tempDir.resolve("second").toString());
+        assertEquals(1, metrics.getCount(SplitCounter.DOCUMENT_CACHE_MISSES));
+        assertEquals(1, metrics.getCount(SplitCounter.DOCUMENT_CACHE_HITS));
+        assertEquals(1, metrics.getHistogram(SplitPhase.LOAD).getCount());
+
+        // A modified file is parsed again and its stale document closed
+        assertTrue(testPdf.setLastModified(testPdf.lastModified() - 60_000));
+        service.splitPdfWithConfiguration(testPdf.getAbsolutePath(), config, tempDir.resolve("third").toString());
+        assertEquals(2, metrics.getCount(SplitCounter.DOCUMENT_CACHE_MISSES));
+        assertEquals(1, metrics.getCount(SplitCounter.DOCUMENT_CACHE_EVICTIONS));
+
+        // A second input does not fit next to the first
+        File copy = tempDir.resolve("copy.pdf").toFile();
+        Files.copy(testPdf.toPath(), copy.toPath());
+        service.splitPdfWithConfiguration(copy.getAbsolutePath(), config, tempDir.resolve("fourth").toString());
+        assertEquals(3, metrics.getCount(SplitCounter.DOCUMENT_CACHE_MISSES));
+        assertEquals(2, metrics.getCount(SplitCounter.DOCUMENT_CACHE_EVICTIONS));
+        service.clearDocumentCache();
+    }
+
+    @Test
+    void testDocumentCacheNeverClosesLeasedDocuments() throws Exception {
+        SourceDocumentCache cache = new SourceDocumentCache(1, SplitMetrics.NONE);
+        PdfSource input = PdfSource.file(testPdf);
+        SourceDocumentCache.Loader loader = () -> new SourceDocumentCache.Loaded(Loader.loadPDF(testPdf), false);
+
+        // Larger than the budget, so not cached, but open until released
+        SourceDocumentCache.Lease lease = cache.acquire(input, loader);
+        assertEquals(0, cache.size());
+        assertEquals(5, lease.getDocument().getNumberOfPages());
+        lease.release();
+        assertThrows(IOException.class, () -> lease.getDocument().save(new ByteArrayOutputStream()));
+
+        SourceDocumentCache roomy = new SourceDocumentCache(10L * testPdf.length(), SplitMetrics.NONE);
+        SourceDocumentCache.Lease first = roomy.acquire(input, loader);
+        // A second reader while the first holds the document gets its own
+        SourceDocumentCache.Lease second = roomy.acquire(input, loader);
+        assertNotSame(first.getDocument(), second.getDocument());
+        second.release();
+        roomy.clear();
+        assertEquals(0, roomy.size());
+        assertEquals(5, first.getDocument().getNumberOfPages());
+        first.release();
+        first.release();
+        assertThrows(IOException.class, () -> first.getDocument().save(new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void testCompactProfileNeverSharesTheSource() throws Exception {
+        SplitOptions cached = new SplitOptions();
+        cached.setSaveProfile(SaveProfile.COMPACT);
+        cached.setDocumentCacheBytes(1024 * 1024);
+        assertThrows(IllegalArgumentException.class, () -> new PdfSplitterService(new FileNamingService(), cached));
+
+        InMemorySplitMetrics metrics = new InMemorySplitMetrics();
+        SplitOptions options = new SplitOptions();
+        options.setSaveProfile(SaveProfile.COMPACT);
+        options.setMetrics(metrics);
+        Map<String, SplitConfiguration> configurations = new LinkedHashMap<>();
+        configurations.put(tempDir.resolve("a").toString(), new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 2, 95))));
+        configurations.put(tempDir.resolve("b").toString(), new SplitConfiguration(Arrays.asList(
+            new DocumentSection("invoice", 1, 3, 95))));
+
+        List<FanOutResult> results = new PdfSplitterService(new FileNamingService(), options)
+            .splitPdfWithConfigurations(testPdf.getAbsolutePath(), configurations);
+
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(2, metrics.getHistogram(SplitPhase.LOAD).getCount());
+    }
+
+    @Test
+    void testInvalidWorkerCountIsRejected() {
+        SplitOptions options = new SplitOptions();
+        options.setWorkerCount(0);
+
+        assertThrows(IllegalArgumentException.class, 
+            () -> new PdfSplitterService(new FileNamingService(), options));
+    }
+
+    /**
+     * Creates a PDF whose pages all share one resource dictionary holding a noisy image per
+     * page, as some scanners produce.
+     */
+    private File createSharedResourcesPdf() throws IOException {
+        File pdfFile = tempDir.resolve("shared.pdf").toFile();
+        Random random = new Random(42);
+        try (PDDocument document = new PDDocument()) {
+            PDResources shared = new PDResources();
+            for (int i = 0; i < 4; i++) {
+                BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+                for (int x = 0; x < 64; x++) {
+                    for (int y = 0; y < 64; y++) {
+                        image.setRGB(x, y, random.nextInt(0x1000000));
+                    }
+                }
+                PDImageXObject xObject = LosslessFactory.createFromImage(document, image);
+
+                PDPage page = new PDPage();
+                page.setResources(shared);
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.drawImage(xObject, 50, 50, 200, 200);
+                }
+            }
+            document.save(pdfFile);
+        }
+        return pdfFile;
+    }
+
+    /**
+     * Creates a PDF whose pages carry identical, uncompressed text content streams.
+     */
+    private File createTextPdf() throws IOException {
+        File pdfFile = tempDir.resolve("text.pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (int i = 0; i < 6; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(
+                        document, page, PDPageContentStream.AppendMode.OVERWRITE, false)) {
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.newLineAtOffset(50, 700);
+                    for (int line = 0; line < 40; line++) {
+                        content.showText("Statement line " + line + " lorem ipsum dolor sit amet");
+                        content.newLineAtOffset(0, -14);
+                    }
+                    content.endText();
+                }
+            }
+            document.save(pdfFile, CompressParameters.NO_COMPRESSION);
+        }
+        return pdfFile;
+    }
+
+    /**
+     * Creates a PDF whose page tree has two levels and whose pages each carry a link to the
+     * first page and a link to the next page. The media box is inherited from the tree root.
+     */
+    private File createLinkedPdf(int pageCount) throws IOException {
+        File pdfFile = tempDir.resolve("linked.pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pageCount; i++) {
+                document.addPage(new PDPage());
+            }
+            for (int i = 0; i < pageCount; i++) {
+                PDPage page = document.getPage(i);
+                page.getAnnotations().add(link(document.getPage(0), "Page " + (i + 1)));
+                page.getAnnotations().add(link(document.getPage((i + 1) % pageCount), "Next"));
+            }
+
+            // Regroup the flat tree PDFBox writes into two intermediate nodes
+            COSDictionary root = document.getPages().getCOSObject();
+            COSArray pages = root.getCOSArray(COSName.KIDS);
+            COSArray nodes = new COSArray();
+            int half = pageCount / 2;
+            for (int from : new int[] {0, half}) {
+                int to = from == 0 ? half : pageCount;
+                COSDictionary node = new COSDictionary();
+                node.setItem(COSName.TYPE, COSName.PAGES);
+                node.setItem(COSName.PARENT, root);
+                node.setInt(COSName.COUNT, to - from);
+                COSArray kids = new COSArray();
+                for (int i = from; i < to; i++) {
+                    COSDictionary page = (COSDictionary) pages.getObject(i);
+                    page.setItem(COSName.PARENT, node);
+                    page.removeItem(COSName.MEDIA_BOX);
+                    kids.add(page);
+                }
+                node.setItem(COSName.KIDS, kids);
+                nodes.add(node);
+            }
+            root.setItem(COSName.KIDS, nodes);
+            root.setItem(COSName.MEDIA_BOX, PDRectangle.LETTER.getCOSArray());
+            document.save(pdfFile);
+        }
+        return pdfFile;
+    }
+
+    private static PDAnnotationLink link(PDPage target, String contents) {
+        PDPageFitDestination destination = new PDPageFitDestination();
+        destination.setPage(target);
+        PDAnnotationLink link = new PDAnnotationLink();
+        link.setRectangle(new PDRectangle(50, 50, 100, 20));
+        link.setDestination(destination);
+        link.setContents(contents);
+        return link;
+    }
+
     private File createTestPdf() throws IOException {
         File pdfFile = tempDir.resolve("test.pdf").toFile();
         
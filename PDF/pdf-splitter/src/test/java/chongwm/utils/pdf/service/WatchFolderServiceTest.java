@@ -0,0 +1,66 @@
+package chongwm.utils.pdf.service;
+
+import chongwm.utils.pdf.TestDocuments;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WatchFolderServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDroppedPairsAreSplitAndMoved() throws Exception {
+        Path drop = tempDir.resolve("drop");
+        Path output = tempDir.resolve("out");
+        WatchFolderService watcher = new WatchFolderService(new PdfSplitterService(), drop, output, 2, 4, 100, 60_000);
+        watcher.start();
+        try {
+            // Sibling configuration arrives after the PDF
+            TestDocuments.writePdf(drop.resolve("scan1.pdf"));
+            Thread.sleep(200);
+            TestDocuments.writeConfig(drop.resolve("scan1.json"), TestDocuments.INVOICE_AND_RECEIPT);
+            TestDocuments.writePdf(drop.resolve("scan2.pdf"));
+            TestDocuments.writeConfig(drop.resolve("scan2.json"), TestDocuments.invoiceAndReceipt(9));
+            // A PDF without configuration is left alone
+            TestDocuments.writePdf(drop.resolve("orphan.pdf"));
+
+            waitFor(() -> watcher.getCompletedCount() + watcher.getFailedCount() == 2);
+        } finally {
+            watcher.stop(10);
+        }
+
+        assertEquals(1, watcher.getCompletedCount());
+        assertEquals(1, watcher.getFailedCount());
+        assertTrue(Files.exists(output.resolve("scan1").resolve("invoice_95.pdf")));
+        assertTrue(Files.exists(output.resolve("scan1").resolve("receipt_88.pdf")));
+        assertTrue(Files.exists(drop.resolve(WatchFolderService.DONE_DIRECTORY).resolve("scan1.pdf")));
+        assertTrue(Files.exists(drop.resolve(WatchFolderService.DONE_DIRECTORY).resolve("scan1.json")));
+        assertTrue(Files.exists(drop.resolve(WatchFolderService.FAILED_DIRECTORY).resolve("scan2.pdf")));
+        String error = new String(Files.readAllBytes(
+            drop.resolve(WatchFolderService.FAILED_DIRECTORY).resolve("scan2.error.txt")), StandardCharsets.UTF_8);
+        assertTrue(error.contains("exceeds document page count"));
+        assertTrue(Files.exists(drop.resolve("orphan.pdf")));
+    }
+
+    @Test
+    void testInvalidQueueCapacityIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new WatchFolderService(
+            new PdfSplitterService(), tempDir.resolve("drop"), tempDir.resolve("out"), 1, 0, 100, 1000));
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the watcher");
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package chongwm.utils.pdf.util;
+
+import chongwm.utils.pdf.exception.InvalidConfigurationException;
+import chongwm.utils.pdf.model.BatchItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchManifestReaderTest {
+
+    private BatchManifestReader reader;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        reader = new BatchManifestReader();
+    }
+
+    @Test
+    void testReadCsvManifest() throws IOException, InvalidConfigurationException {
+        File manifest = createManifest("manifest.csv",
+            "input,config,output\n" +
+            "a.pdf,a.json,out/a\n" +
+            "\n" +
+            "# skipped\n" +
+            "\"b, final.pdf\",b.json,out/b\n"
+        );
+
+        List<BatchItem> items = reader.readManifest(manifest.getAbsolutePath());
+
+        assertEquals(2, items.size());
+        assertEquals("a.pdf", items.get(0).getInputPdfPath());
+        assertEquals(2, items.get(0).getLineNumber());
+        assertEquals("b, final.pdf", items.get(1).getInputPdfPath());
+        assertEquals("out/b", items.get(1).getOutputDirectory());
+    }
+
+    @Test
+    void testReadNdjsonManifest() throws IOException, InvalidConfigurationException {
+        File manifest = createManifest("manifest.txt",
+            "{\"input\": \"a.pdf\", \"config\": \"a.json\", \"output\": \"out/a\"}\n" +
+            "{\"input\": \"b.pdf\", \"config\": \"b.json\", \"output\": \"out/b\"}\n"
+        );
+
+        List<BatchItem> items = reader.readManifest(manifest.getAbsolutePath());
+
+        assertEquals(2, items.size());
+        assertEquals("b.json", items.get(1).getConfigurationPath());
+    }
+
+    @Test
+    void testReadManifestWithMissingColumn() throws IOException {
+        File manifest = createManifest("manifest.csv", "a.pdf,a.json\n");
+
+        assertThrows(InvalidConfigurationException.class, () -> {
+            reader.readManifest(manifest.getAbsolutePath());
+        });
+    }
+
+    @Test
+    void testReadNonExistentManifest() {
+        assertThrows(InvalidConfigurationException.class, () -> {
+            reader.readManifest("nonexistent.csv");
+        });
+    }
+
+    private File createManifest(String name, String content) throws IOException {
+        File manifestFile = tempDir.resolve(name).toFile();
+        try (FileWriter writer = new FileWriter(manifestFile)) {
+            writer.write(content);
+        }
+        return manifestFile;
+    }
+}
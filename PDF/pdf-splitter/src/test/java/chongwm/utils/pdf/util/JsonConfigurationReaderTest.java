@@ -127,6 +127,41 @@ class JsonConfigurationReaderTest {
         });
     }
 
+    @Test
+    void testOpenSectionsStopsAtFirstBadRecord() throws IOException, InvalidConfigurationException {
+        File configFile = createConfigFile(
+            "{\n" +
+            "  \"documents\": [\n" +
+            "    {\"category\": \"invoice\", \"start_page\": 1, \"end_page\": 2, \"confidence\": 95},\n" +
+            "    {\"category\": \"receipt\", \"start_page\": 2, \"end_page\": 3, \"confidence\": 88},\n" +
+            "    this is not even JSON\n" +
+            "  ]\n" +
+            "}"
+        );
+
+        try (SectionStreamReader sections = reader.openSections(configFile.getAbsolutePath())) {
+            assertTrue(sections.hasNext());
+            assertEquals("invoice", sections.next().getCategory());
+
+            InvalidConfigurationException e = assertThrows(InvalidConfigurationException.class, 
+                sections::nextSection);
+            assertTrue(e.getMessage().contains("section 2 (line 4)"), e.getMessage());
+            assertNull(sections.nextSection());
+        }
+    }
+
+    @Test
+    void testReadConfigurationWithUnknownField() throws IOException {
+        File configFile = createConfigFile(
+            "{\"documents\": [{\"category\": \"a\", \"start_page\": 1, \"end_page\": 1, \"confidence\": 1}], " +
+            "\"extra\": true}"
+        );
+
+        assertThrows(InvalidConfigurationException.class, () -> {
+            reader.readConfiguration(configFile.getAbsolutePath());
+        });
+    }
+
     @Test
     void testReadNonExistentConfiguration() {
         assertThrows(InvalidConfigurationException.class, () -> {